@@ -0,0 +1,20 @@
+package com.kuchtoker.inventory_service.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    // Compacted and keyed by skuCode, so a new consumer can rebuild current stock from the topic alone
+    @Bean
+    public NewTopic stockTopic(@Value("${inventory.outbox.topic:inventoryStockTopic}") String topic) {
+        return TopicBuilder.name(topic)
+                .partitions(3)
+                .compact()
+                .build();
+    }
+}
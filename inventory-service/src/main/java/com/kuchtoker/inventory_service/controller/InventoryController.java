@@ -1,15 +1,29 @@
 package com.kuchtoker.inventory_service.controller;
 
+import com.kuchtoker.inventory_service.dto.AvailabilityResponse;
 import com.kuchtoker.inventory_service.dto.InventoryCheckRequest;
+import com.kuchtoker.inventory_service.dto.InventoryImportResponse;
+import com.kuchtoker.inventory_service.dto.StockHoldBatchResponse;
+import com.kuchtoker.inventory_service.dto.StockHoldResponse;
+import com.kuchtoker.inventory_service.service.AvailabilityService;
+import com.kuchtoker.inventory_service.service.DeductBatcher;
+import com.kuchtoker.inventory_service.service.InventoryImportService;
 import com.kuchtoker.inventory_service.service.InventoryService;
+import com.kuchtoker.inventory_service.service.StockHoldService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 @Slf4j
@@ -19,13 +33,26 @@ import java.util.Map;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final DeductBatcher deductBatcher;
+    private final StockHoldService stockHoldService;
+    private final InventoryImportService inventoryImportService;
+    private final AvailabilityService availabilityService;
+
+    @GetMapping("/availability")
+    public List<AvailabilityResponse> availability(@RequestParam List<String> skuCode) {
+        return availabilityService.getAvailability(skuCode);
+    }
 
     @PostMapping("/check-and-deduct")
     public ResponseEntity<?> checkAndDeduct(@RequestBody List<InventoryCheckRequest> requests) {
         log.info("Received inventory checkAndDeduct request");
 
         try {
-            inventoryService.checkAndDeductStock(requests);
+            if (deductBatcher.isEnabled()) {
+                deductBatcher.deduct(requests);
+            } else {
+                inventoryService.checkAndDeductStock(requests);
+            }
             return ResponseEntity.ok(Map.of("success", true, "message", "Stock reserved"));
         } catch (RuntimeException e) {
             log.warn("Error during inventory check: {}", e.getMessage());
@@ -51,7 +78,85 @@ public class InventoryController {
         }
     }
 
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<InventoryImportResponse> importStock(HttpServletRequest request) throws IOException {
+        log.info("Received inventory import request of type {}", request.getContentType());
+
+        InventoryImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? InventoryImportService.Format.CSV
+                : InventoryImportService.Format.NDJSON;
+        // Read the body straight from the request stream so it is never buffered as a whole
+        return ResponseEntity.ok(inventoryImportService.importStock(request.getInputStream(), format));
+    }
+
+    @PostMapping("/reserve")
+    public ResponseEntity<StockHoldResponse> reserve(@RequestBody List<InventoryCheckRequest> requests,
+                                                     @RequestParam(required = false) Long ttlSeconds) {
+        log.info("Received inventory reserve request with {} item(s)", requests.size());
+
+        try {
+            return ResponseEntity.ok(stockHoldService.reserve(requests, ttlSeconds));
+        } catch (RuntimeException e) {
+            log.warn("Error during inventory reserve: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(StockHoldResponse.builder()
+                    .success(false)
+                    .message(e.getMessage())
+                    .build());
+        }
+    }
+
+    @PostMapping("/reserve-batch")
+    public ResponseEntity<?> reserveBatch(@RequestBody List<List<InventoryCheckRequest>> orders,
+                                          @RequestParam(required = false) Long ttlSeconds) {
+        log.info("Received inventory reserve-batch request with {} order(s)", orders.size());
+
+        try {
+            return ResponseEntity.ok(stockHoldService.reserveBatch(orders, ttlSeconds));
+        } catch (RuntimeException e) {
+            log.warn("Error during inventory reserve-batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/confirm-batch")
+    public ResponseEntity<StockHoldBatchResponse> confirmBatch(@RequestBody List<String> holdIds) {
+        log.info("Received inventory confirm-batch request for {} hold(s)", holdIds.size());
+
+        List<String> failedHoldIds = stockHoldService.confirmBatch(holdIds);
+        return ResponseEntity.ok(new StockHoldBatchResponse(failedHoldIds.isEmpty(), failedHoldIds));
+    }
+
+    @PostMapping("/release-batch")
+    public ResponseEntity<StockHoldBatchResponse> releaseBatch(@RequestBody List<String> holdIds) {
+        log.info("Received inventory release-batch request for {} hold(s)", holdIds.size());
+
+        List<String> failedHoldIds = stockHoldService.releaseBatch(holdIds);
+        return ResponseEntity.ok(new StockHoldBatchResponse(failedHoldIds.isEmpty(), failedHoldIds));
+    }
+
+    @PostMapping("/confirm/{holdId}")
+    public ResponseEntity<Map<String, Object>> confirm(@PathVariable String holdId) {
+        log.info("Received inventory confirm request for hold {}", holdId);
 
+        try {
+            stockHoldService.confirm(holdId);
+            return ResponseEntity.ok(Map.of("success", true, "message", "Stock hold confirmed"));
+        } catch (RuntimeException e) {
+            log.warn("Error during inventory confirm: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
 
+    @PostMapping("/release/{holdId}")
+    public ResponseEntity<Map<String, Object>> release(@PathVariable String holdId) {
+        log.info("Received inventory release request for hold {}", holdId);
 
+        try {
+            stockHoldService.release(holdId);
+            return ResponseEntity.ok(Map.of("success", true, "message", "Stock hold released"));
+        } catch (RuntimeException e) {
+            log.warn("Error during inventory release: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,16 @@
+package com.kuchtoker.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AvailabilityResponse {
+	private String skuCode;
+	private int quantity;
+	private boolean inStock;
+}
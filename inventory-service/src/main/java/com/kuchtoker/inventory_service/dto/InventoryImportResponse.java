@@ -0,0 +1,21 @@
+package com.kuchtoker.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryImportResponse {
+	private long rowsImported;
+	private long rowsRejected;
+	private long chunks;
+	private long elapsedMillis;
+	private double rowsPerSecond;
+	private List<String> errors;
+}
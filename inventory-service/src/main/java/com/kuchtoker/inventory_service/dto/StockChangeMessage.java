@@ -0,0 +1,21 @@
+package com.kuchtoker.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockChangeMessage {
+	// Grows with every change of a SKU; a consumer can drop a record older than the one it already applied
+	private long eventId;
+	private String skuCode;
+	private int delta;
+	private int quantity;
+	private Instant changedAt;
+}
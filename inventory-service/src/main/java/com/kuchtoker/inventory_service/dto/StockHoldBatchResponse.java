@@ -0,0 +1,17 @@
+package com.kuchtoker.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockHoldBatchResponse {
+	private boolean success;
+	private List<String> failedHoldIds;
+}
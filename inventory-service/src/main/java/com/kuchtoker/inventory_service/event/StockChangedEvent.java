@@ -0,0 +1,14 @@
+package com.kuchtoker.inventory_service.event;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Signed quantity change per SKU made by one committed transaction.
+ */
+public record StockChangedEvent(Map<String, Integer> deltas) {
+
+    public Set<String> skuCodes() {
+        return deltas.keySet();
+    }
+}
@@ -0,0 +1,32 @@
+package com.kuchtoker.inventory_service.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class InsufficientStockException extends RuntimeException {
+
+	private final List<String> missingSkuCodes;
+	private final List<String> insufficientSkuCodes;
+
+	public InsufficientStockException(List<String> missingSkuCodes, List<String> insufficientSkuCodes) {
+		super(buildMessage(missingSkuCodes, insufficientSkuCodes));
+		this.missingSkuCodes = List.copyOf(missingSkuCodes);
+		this.insufficientSkuCodes = List.copyOf(insufficientSkuCodes);
+	}
+
+	private static String buildMessage(List<String> missingSkuCodes, List<String> insufficientSkuCodes) {
+		StringBuilder message = new StringBuilder();
+		if (!missingSkuCodes.isEmpty()) {
+			message.append("SKU not found: ").append(String.join(", ", missingSkuCodes));
+		}
+		if (!insufficientSkuCodes.isEmpty()) {
+			if (!message.isEmpty()) {
+				message.append("; ");
+			}
+			message.append("Insufficient stock for SKU: ").append(String.join(", ", insufficientSkuCodes));
+		}
+		return message.toString();
+	}
+}
@@ -0,0 +1,8 @@
+package com.kuchtoker.inventory_service.model;
+
+public enum HoldStatus {
+    HELD,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
@@ -7,7 +7,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "t_inventory")
+@Table(name = "t_inventory",
+        indexes = @Index(name = "ux_inventory_sku_code", columnList = "skuCode", unique = true))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,23 @@
+package com.kuchtoker.inventory_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "t_inventory_bucket",
+        indexes = @Index(name = "ux_inventory_bucket_sku_code_bucket", columnList = "skuCode, bucket", unique = true))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String skuCode;
+    private Integer bucket;
+    private Integer quantity;
+}
@@ -0,0 +1,30 @@
+package com.kuchtoker.inventory_service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "t_inventory_ledger_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCheckpoint {
+    @Id
+    private String name;
+    private Long lastSequence;
+    // Instance currently allowed to run the ledger, and until when unless it renews
+    private String owner;
+    private Instant leaseUntil;
+    // Comma separated SKUs the lease holder serves from memory; every instance keeps its hands off their rows
+    @Column(length = 4000)
+    private String hotSkuCodes;
+}
@@ -0,0 +1,24 @@
+package com.kuchtoker.inventory_service.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Marks a journaled hot deduction whose transaction committed and that has not reached
+ * {@code t_inventory} yet. Written in that transaction, so a deduction that never committed has none.
+ */
+@Entity
+@Table(name = "t_inventory_ledger_commit")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCommit {
+    @Id
+    private Long journalSequence;
+}
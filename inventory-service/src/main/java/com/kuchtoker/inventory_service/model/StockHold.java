@@ -0,0 +1,29 @@
+package com.kuchtoker.inventory_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Entity
+@Table(name = "t_stock_hold",
+        indexes = @Index(name = "ix_stock_hold_status_expires_at", columnList = "status, expiresAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHold {
+    @Id
+    private String holdId;
+    @Enumerated(EnumType.STRING)
+    private HoldStatus status;
+    private Instant createdAt;
+    private Instant expiresAt;
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "t_stock_hold_item", joinColumns = @JoinColumn(name = "hold_id"))
+    private List<StockHoldItem> items;
+}
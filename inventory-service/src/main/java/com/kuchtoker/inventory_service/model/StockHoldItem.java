@@ -0,0 +1,17 @@
+package com.kuchtoker.inventory_service.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldItem {
+    private String skuCode;
+    private Integer quantity;
+}
@@ -0,0 +1,27 @@
+package com.kuchtoker.inventory_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "t_inventory_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String skuCode;
+    private Integer delta;
+    // Quantity right after the change when the transaction that made it could read it exactly;
+    // null for sharded and hot SKUs, whose quantity the relay reads when it publishes the row
+    private Integer quantity;
+    private Instant createdAt;
+}
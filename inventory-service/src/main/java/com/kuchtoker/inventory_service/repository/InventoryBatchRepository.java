@@ -0,0 +1,179 @@
+package com.kuchtoker.inventory_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Set-based stock updates that bypass the JPA entity lifecycle. Every method sends
+ * a single JDBC batch, so the number of round trips does not grow with the number of SKUs.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryBatchRepository {
+
+    private static final String DEDUCT_IF_AVAILABLE_SQL =
+            "UPDATE t_inventory SET quantity = quantity - ? WHERE sku_code = ? AND quantity >= ?";
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE t_inventory SET quantity = quantity + ? WHERE sku_code = ?";
+
+    private static final String POSTGRES_UPSERT_ADD_SQL =
+            "INSERT INTO t_inventory (sku_code, quantity) VALUES (?, ?) "
+                    + "ON CONFLICT (sku_code) DO UPDATE SET quantity = t_inventory.quantity + EXCLUDED.quantity";
+
+    private static final String MYSQL_UPSERT_ADD_SQL =
+            "INSERT INTO t_inventory (sku_code, quantity) VALUES (?, ?) "
+                    + "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO t_inventory (sku_code, quantity) VALUES (?, ?)";
+
+    private static final String FIND_QUANTITIES_SQL =
+            "SELECT sku_code, quantity FROM t_inventory WHERE sku_code IN (:skuCodes)";
+
+    private static final String LOCK_QUANTITIES_SQL =
+            "SELECT sku_code, quantity FROM t_inventory WHERE sku_code IN (:skuCodes) ORDER BY sku_code FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private volatile String databaseProductName;
+
+    /**
+     * Reads the quantities of the given SKUs without locking. SKUs without a row are absent from the result.
+     */
+    public Map<String, Integer> findQuantities(Collection<String> skuCodes) {
+        return queryQuantities(FIND_QUANTITIES_SQL, skuCodes);
+    }
+
+    /**
+     * Locks the rows of the given SKUs for the rest of the transaction and returns their quantities.
+     * SKUs without a row are absent from the result.
+     */
+    public Map<String, Integer> lockQuantities(Collection<String> skuCodes) {
+        return queryQuantities(LOCK_QUANTITIES_SQL, skuCodes);
+    }
+
+    private Map<String, Integer> queryQuantities(String sql, Collection<String> skuCodes) {
+        Map<String, Integer> quantities = new HashMap<>();
+        if (skuCodes.isEmpty()) {
+            return quantities;
+        }
+        namedParameterJdbcTemplate.query(sql, Map.of("skuCodes", skuCodes),
+                rs -> {
+                    quantities.put(rs.getString("sku_code"), rs.getInt("quantity"));
+                });
+        return quantities;
+    }
+
+    /**
+     * Conditionally deducts every entry and returns the SKUs whose row was missing or short.
+     * Callers pass a sorted map so concurrent orders always lock rows in the same order,
+     * and must run inside a transaction so a non-empty result can be rolled back.
+     */
+    public List<String> deductIfAvailable(Map<String, Integer> quantities) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(quantities.entrySet());
+        int[] updateCounts = jdbcTemplate.batchUpdate(DEDUCT_IF_AVAILABLE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<String, Integer> entry = entries.get(i);
+                ps.setInt(1, entry.getValue());
+                ps.setString(2, entry.getKey());
+                ps.setInt(3, entry.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+
+        List<String> shortSkuCodes = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                shortSkuCodes.add(entries.get(i).getKey());
+            }
+        }
+        return shortSkuCodes;
+    }
+
+    /**
+     * Adds each signed delta to the stored quantity without any availability check.
+     */
+    public void applyDeltas(Map<String, Integer> deltas) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<String, Integer> entry = entries.get(i);
+                ps.setInt(1, entry.getValue());
+                ps.setString(2, entry.getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+
+    /**
+     * Adds each quantity to its SKU, creating missing rows, as one batch keyed on the unique
+     * {@code sku_code} index. Databases without a native upsert fall back to update-then-insert.
+     */
+    public void upsertAdd(Map<String, Integer> quantities) {
+        List<Object[]> rows = quantities.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .toList();
+
+        String product = databaseProductName();
+        if (product.contains("postgres")) {
+            jdbcTemplate.batchUpdate(POSTGRES_UPSERT_ADD_SQL, rows);
+        } else if (product.contains("mysql") || product.contains("mariadb")) {
+            jdbcTemplate.batchUpdate(MYSQL_UPSERT_ADD_SQL, rows);
+        } else {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>(quantities.entrySet());
+            int[] updateCounts = jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setInt(1, entries.get(i).getValue());
+                    ps.setString(2, entries.get(i).getKey());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return entries.size();
+                }
+            });
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] == 0) {
+                    inserts.add(new Object[]{entries.get(i).getKey(), entries.get(i).getValue()});
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+        }
+    }
+
+    private String databaseProductName() {
+        if (databaseProductName == null) {
+            databaseProductName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT));
+        }
+        return databaseProductName;
+    }
+}
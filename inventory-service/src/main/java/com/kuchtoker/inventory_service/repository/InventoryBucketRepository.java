@@ -0,0 +1,167 @@
+package com.kuchtoker.inventory_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock of sharded SKUs, spread over several {@code t_inventory_bucket} rows per SKU. The SKU's
+ * {@code t_inventory} row keeps counting towards its stock, so a change that reaches the row from an
+ * instance that does not know about the buckets yet is never lost. Locks are always taken on the
+ * row first and then on the buckets in bucket order.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryBucketRepository {
+
+    private static final String DEDUCT_BUCKET_IF_AVAILABLE_SQL =
+            "UPDATE t_inventory_bucket SET quantity = quantity - ? WHERE sku_code = ? AND bucket = ? AND quantity >= ?";
+
+    private static final String CREDIT_BUCKET_SQL =
+            "UPDATE t_inventory_bucket SET quantity = quantity + ? WHERE sku_code = ? AND bucket = ?";
+
+    private static final String LOCK_BUCKETS_SQL =
+            "SELECT quantity FROM t_inventory_bucket WHERE sku_code = ? ORDER BY bucket FOR UPDATE";
+
+    private static final String COUNT_BUCKETS_SQL =
+            "SELECT COUNT(*) FROM t_inventory_bucket WHERE sku_code = ?";
+
+    private static final String INSERT_BUCKET_SQL =
+            "INSERT INTO t_inventory_bucket (sku_code, bucket, quantity) VALUES (?, ?, ?)";
+
+    private static final String DELETE_BUCKETS_SQL =
+            "DELETE FROM t_inventory_bucket WHERE sku_code = ?";
+
+    private static final String BUCKET_COUNTS_SQL =
+            "SELECT sku_code, COUNT(*) AS buckets FROM t_inventory_bucket GROUP BY sku_code";
+
+    private static final String LOCK_INVENTORY_SQL =
+            "SELECT quantity FROM t_inventory WHERE sku_code = ? FOR UPDATE";
+
+    private static final String CLEAR_INVENTORY_SQL =
+            "UPDATE t_inventory SET quantity = 0 WHERE sku_code = ?";
+
+    private static final String DEDUCT_INVENTORY_IF_AVAILABLE_SQL =
+            "UPDATE t_inventory SET quantity = quantity - ? WHERE sku_code = ? AND quantity >= ?";
+
+    private static final String CREDIT_INVENTORY_SQL =
+            "UPDATE t_inventory SET quantity = quantity + ? WHERE sku_code = ?";
+
+    private static final String TOTALS_SQL =
+            "SELECT sku_code, SUM(quantity) AS total FROM ("
+                    + "SELECT sku_code, quantity FROM t_inventory WHERE sku_code IN (:skuCodes) "
+                    + "UNION ALL SELECT sku_code, quantity FROM t_inventory_bucket WHERE sku_code IN (:skuCodes)"
+                    + ") stock GROUP BY sku_code";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public boolean deductFromBucketIfAvailable(String skuCode, int bucket, int quantity) {
+        return jdbcTemplate.update(DEDUCT_BUCKET_IF_AVAILABLE_SQL, quantity, skuCode, bucket, quantity) > 0;
+    }
+
+    /**
+     * Credits one bucket, falling back to the inventory row when the buckets were merged away meanwhile.
+     */
+    public void creditBucket(String skuCode, int bucket, int quantity) {
+        if (jdbcTemplate.update(CREDIT_BUCKET_SQL, quantity, skuCode, bucket) == 0) {
+            jdbcTemplate.update(CREDIT_INVENTORY_SQL, quantity, skuCode);
+        }
+    }
+
+    public boolean deductFromInventoryIfAvailable(String skuCode, int quantity) {
+        return jdbcTemplate.update(DEDUCT_INVENTORY_IF_AVAILABLE_SQL, quantity, skuCode, quantity) > 0;
+    }
+
+    /**
+     * Locks the inventory row of the SKU and returns its quantity, or 0 when it has none.
+     */
+    public int lockInventory(String skuCode) {
+        List<Integer> quantity = jdbcTemplate.queryForList(LOCK_INVENTORY_SQL, Integer.class, skuCode);
+        return quantity.isEmpty() ? 0 : quantity.get(0);
+    }
+
+    /**
+     * Locks every bucket of the SKU and returns their quantities indexed by bucket number.
+     */
+    public List<Integer> lockBuckets(String skuCode) {
+        return new ArrayList<>(jdbcTemplate.queryForList(LOCK_BUCKETS_SQL, Integer.class, skuCode));
+    }
+
+    /**
+     * Number of buckets of every sharded SKU, as stored.
+     */
+    public Map<String, Integer> bucketCounts() {
+        Map<String, Integer> bucketCounts = new HashMap<>();
+        jdbcTemplate.query(BUCKET_COUNTS_SQL, rs -> {
+            bucketCounts.put(rs.getString("sku_code"), rs.getInt("buckets"));
+        });
+        return bucketCounts;
+    }
+
+    /**
+     * Moves the stock of a {@code t_inventory} row into {@code buckets} bucket rows, unless that
+     * already happened. Returns the number of buckets the SKU has, or 0 when it has no inventory row.
+     */
+    public int splitIntoBuckets(String skuCode, int buckets) {
+        List<Integer> quantity = jdbcTemplate.queryForList(LOCK_INVENTORY_SQL, Integer.class, skuCode);
+        if (quantity.isEmpty()) {
+            return 0;
+        }
+        Integer existingBuckets = jdbcTemplate.queryForObject(COUNT_BUCKETS_SQL, Integer.class, skuCode);
+        if (existingBuckets != null && existingBuckets > 0) {
+            return existingBuckets;
+        }
+
+        int total = quantity.get(0);
+        List<Object[]> rows = new ArrayList<>(buckets);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int share = total / buckets + (bucket < total % buckets ? 1 : 0);
+            rows.add(new Object[]{skuCode, bucket, share});
+        }
+        jdbcTemplate.batchUpdate(INSERT_BUCKET_SQL, rows);
+        jdbcTemplate.update(CLEAR_INVENTORY_SQL, skuCode);
+        return buckets;
+    }
+
+    /**
+     * Moves the stock of every bucket back into the {@code t_inventory} row and deletes the buckets.
+     * Returns the number of buckets merged, or 0 when the SKU was not sharded or has no inventory row.
+     */
+    public int mergeBuckets(String skuCode) {
+        List<Integer> quantity = jdbcTemplate.queryForList(LOCK_INVENTORY_SQL, Integer.class, skuCode);
+        if (quantity.isEmpty()) {
+            return 0;
+        }
+        List<Integer> bucketQuantities = lockBuckets(skuCode);
+        if (bucketQuantities.isEmpty()) {
+            return 0;
+        }
+        int total = bucketQuantities.stream().mapToInt(Integer::intValue).sum();
+        jdbcTemplate.update(CREDIT_INVENTORY_SQL, total, skuCode);
+        jdbcTemplate.update(DELETE_BUCKETS_SQL, skuCode);
+        return bucketQuantities.size();
+    }
+
+    /**
+     * Total stock per SKU, buckets and inventory row together, in a single aggregate query.
+     */
+    public Map<String, Integer> totals(Collection<String> skuCodes) {
+        Map<String, Integer> totals = new HashMap<>();
+        if (skuCodes.isEmpty()) {
+            return totals;
+        }
+        namedParameterJdbcTemplate.query(TOTALS_SQL, Map.of("skuCodes", skuCodes),
+                rs -> {
+                    totals.put(rs.getString("sku_code"), rs.getInt("total"));
+                });
+        return totals;
+    }
+}
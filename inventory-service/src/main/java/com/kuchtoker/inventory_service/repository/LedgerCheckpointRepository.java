@@ -0,0 +1,31 @@
+package com.kuchtoker.inventory_service.repository;
+
+import com.kuchtoker.inventory_service.model.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, String> {
+
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.lastSequence = :lastSequence where c.name = :name")
+    int updateLastSequence(String name, Long lastSequence);
+
+    // Takes or renews the lease when it is free, expired or already held by the owner; 0 means someone else holds it
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.owner = :owner, c.leaseUntil = :leaseUntil "
+            + "where c.name = :name and (c.owner is null or c.owner = :owner or c.leaseUntil < :now)")
+    int acquireLease(String name, String owner, Instant leaseUntil, Instant now);
+
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.hotSkuCodes = :hotSkuCodes where c.name = :name and c.owner = :owner")
+    int publishHotSkuCodes(String name, String owner, String hotSkuCodes);
+
+    // Also hands the hot SKUs back to the database path, so only call it once everything is flushed
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.owner = null, c.leaseUntil = null, c.hotSkuCodes = null "
+            + "where c.name = :name and c.owner = :owner")
+    int releaseLease(String name, String owner);
+}
@@ -0,0 +1,24 @@
+package com.kuchtoker.inventory_service.repository;
+
+import com.kuchtoker.inventory_service.model.LedgerCommit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LedgerCommitRepository extends JpaRepository<LedgerCommit, Long> {
+
+    // Plain insert, so the hot path does not pay for the select that save() does on an assigned id
+    @Modifying
+    @Query(value = "INSERT INTO t_inventory_ledger_commit (journal_sequence) VALUES (:journalSequence)", nativeQuery = true)
+    int insert(long journalSequence);
+
+    @Query("select c.journalSequence from LedgerCommit c")
+    List<Long> findAllJournalSequences();
+
+    @Modifying
+    @Query("delete from LedgerCommit c where c.journalSequence in :journalSequences")
+    int deleteByJournalSequenceIn(Collection<Long> journalSequences);
+}
@@ -0,0 +1,36 @@
+package com.kuchtoker.inventory_service.repository;
+
+import com.kuchtoker.inventory_service.model.HoldStatus;
+import com.kuchtoker.inventory_service.model.StockHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockHoldRepository extends JpaRepository<StockHold, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select h from StockHold h where h.holdId in :holdIds and h.status = :status")
+    List<StockHold> lockByHoldIdInAndStatus(Collection<String> holdIds, HoldStatus status);
+
+    @Modifying
+    @Query("update StockHold h set h.status = :to where h.holdId = :holdId and h.status = :from and h.expiresAt > :now")
+    int transitionIfActive(String holdId, HoldStatus from, HoldStatus to, Instant now);
+
+    @Query("select h.holdId from StockHold h where h.holdId in :holdIds and h.status = :status")
+    List<String> findHoldIdsByStatus(Collection<String> holdIds, HoldStatus status);
+
+    @Query("select h.holdId as holdId, h.expiresAt as expiresAt from StockHold h where h.status = :status")
+    List<HoldExpiry> findExpiriesByStatus(HoldStatus status);
+
+    interface HoldExpiry {
+        String getHoldId();
+
+        Instant getExpiresAt();
+    }
+}
@@ -0,0 +1,57 @@
+package com.kuchtoker.inventory_service.repository;
+
+import com.kuchtoker.inventory_service.model.StockOutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class StockOutboxRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO t_inventory_outbox (sku_code, delta, quantity, created_at) VALUES (?, ?, ?, ?)";
+
+    // No SKIP LOCKED: a second relay waits for the first batch to be published and deleted, so every SKU
+    // goes out in id order and an older quantity never lands on the compacted topic after a newer one
+    private static final String LOCK_BATCH_SQL =
+            "SELECT id, sku_code, delta, quantity, created_at FROM t_inventory_outbox ORDER BY id LIMIT ? FOR UPDATE";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM t_inventory_outbox WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Queues one row per SKU with its delta and the quantity it left behind, or no quantity
+     * for SKUs missing from {@code quantities}.
+     */
+    public void insertAll(Map<String, Integer> deltas, Map<String, Integer> quantities, Instant createdAt) {
+        Timestamp timestamp = Timestamp.from(createdAt);
+        List<Object[]> rows = deltas.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue(), quantities.get(entry.getKey()), timestamp})
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    public List<StockOutboxEvent> lockBatch(int batchSize) {
+        return jdbcTemplate.query(LOCK_BATCH_SQL, (rs, rowNum) -> new StockOutboxEvent(
+                rs.getLong("id"),
+                rs.getString("sku_code"),
+                rs.getInt("delta"),
+                rs.getObject("quantity", Integer.class),
+                rs.getTimestamp("created_at").toInstant()), batchSize);
+    }
+
+    public void deleteAll(Collection<Long> ids) {
+        namedParameterJdbcTemplate.update(DELETE_SQL, Map.of("ids", ids));
+    }
+}
@@ -0,0 +1,114 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kuchtoker.inventory_service.dto.AvailabilityResponse;
+import com.kuchtoker.inventory_service.event.StockChangedEvent;
+import com.kuchtoker.inventory_service.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read side for "in stock?" checks. Quantities of plain and sharded SKUs are kept in a bounded
+ * near-cache that is invalidated as soon as a stock change commits; hot SKUs are answered
+ * straight from the in-memory ledger.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilityService {
+
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final HotStockLedger hotStockLedger;
+    private final ShardedStockStore shardedStockStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.availability.cache.maximum-size:100000}")
+    private long maximumSize;
+
+    // Only changes made by this instance are invalidated, so the TTL bounds staleness from the others
+    @Value("${inventory.availability.cache.ttl-seconds:5}")
+    private long ttlSeconds;
+
+    private Cache<String, Integer> quantities;
+
+    @PostConstruct
+    void init() {
+        quantities = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, quantities, "inventory.availability");
+    }
+
+    public List<AvailabilityResponse> getAvailability(List<String> skuCodes) {
+        log.info("Inside AvailabilityService::getAvailability for {} SKU(s)", skuCodes.size());
+
+        Set<String> cachedSkuCodes = new LinkedHashSet<>();
+        for (String skuCode : skuCodes) {
+            if (!hotStockLedger.isHot(skuCode)) {
+                cachedSkuCodes.add(skuCode);
+            }
+        }
+        Map<String, Integer> found = quantities.getAll(cachedSkuCodes, this::load);
+
+        List<AvailabilityResponse> responses = new ArrayList<>(skuCodes.size());
+        for (String skuCode : skuCodes) {
+            int quantity = hotStockLedger.isHot(skuCode) ? hotStockLedger.available(skuCode) : found.get(skuCode);
+            responses.add(new AvailabilityResponse(skuCode, quantity, quantity > 0));
+        }
+        return responses;
+    }
+
+    /**
+     * Current quantities read past the cache, for consumers that must not see a stale value.
+     */
+    public Map<String, Integer> getCurrentQuantities(Set<String> skuCodes) {
+        Set<String> storedSkuCodes = new LinkedHashSet<>();
+        Map<String, Integer> current = new HashMap<>();
+        for (String skuCode : skuCodes) {
+            if (hotStockLedger.isHot(skuCode)) {
+                current.put(skuCode, hotStockLedger.available(skuCode));
+            } else {
+                storedSkuCodes.add(skuCode);
+            }
+        }
+        current.putAll(load(storedSkuCodes));
+        return current;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        quantities.invalidateAll(event.skuCodes());
+    }
+
+    private Map<String, Integer> load(Set<? extends String> skuCodes) {
+        // One query for plain rows and one aggregate for sharded buckets, whatever the number of misses
+        List<String> plainSkuCodes = new ArrayList<>();
+        List<String> shardedSkuCodes = new ArrayList<>();
+        for (String skuCode : skuCodes) {
+            (shardedStockStore.isSharded(skuCode) ? shardedSkuCodes : plainSkuCodes).add(skuCode);
+        }
+
+        Map<String, Integer> loaded = new HashMap<>(inventoryBatchRepository.findQuantities(plainSkuCodes));
+        loaded.putAll(shardedStockStore.totals(shardedSkuCodes));
+        // Unknown SKUs are cached as zero; adding stock for them invalidates the entry
+        skuCodes.forEach(skuCode -> loaded.putIfAbsent(skuCode, 0));
+        return loaded;
+    }
+}
@@ -0,0 +1,193 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.kuchtoker.inventory_service.dto.InventoryCheckRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for check-and-deduct: concurrent requests are queued for a short window
+ * and applied by a single worker thread as one transaction, while every caller still
+ * receives its own outcome. Only the check-and-deduct endpoint goes through here; holds are
+ * reserved in batches by {@link StockHoldService} already.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeductBatcher {
+
+    private final InventoryService inventoryService;
+    private final MeterRegistry meterRegistry;
+
+    @Getter
+    @Value("${inventory.deduct.batching.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.deduct.batching.window-ms:5}")
+    private long windowMs;
+
+    @Value("${inventory.deduct.batching.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${inventory.deduct.batching.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private final BlockingQueue<PendingDeduct> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread worker;
+    private DistributionSummary batchSize;
+    private Timer queueTime;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        batchSize = DistributionSummary.builder("inventory.deduct.batch.size")
+                .description("Number of check-and-deduct requests applied per transaction")
+                .register(meterRegistry);
+        queueTime = Timer.builder("inventory.deduct.batch.queue.time")
+                .description("Time a check-and-deduct request waited before its batch was applied")
+                .register(meterRegistry);
+
+        running = true;
+        worker = Thread.ofPlatform()
+                .name("inventory-deduct-batcher")
+                .daemon()
+                .start(this::drainLoop);
+        log.info("Deduct batching enabled with window {} ms and max batch {}", windowMs, maxBatch);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+
+        List<PendingDeduct> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(pending -> pending.result().completeExceptionally(
+                new IllegalStateException("Inventory service is shutting down")));
+    }
+
+    public void deduct(List<InventoryCheckRequest> requests) {
+        if (inventoryService.bypassesInventoryRows(requests)) {
+            // Batches lock single inventory rows; hot and sharded SKUs have their own contention relief
+            inventoryService.checkAndDeductStock(requests);
+            return;
+        }
+        if (!running) {
+            throw new IllegalStateException("Deduct batching is not running");
+        }
+        PendingDeduct pending = new PendingDeduct(requests, System.nanoTime(), new CompletableFuture<>());
+        queue.add(pending);
+        try {
+            await(pending);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the stock deduction", e);
+        }
+    }
+
+    private void await(PendingDeduct pending) throws ExecutionException, InterruptedException {
+        try {
+            pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+            return;
+        } catch (TimeoutException e) {
+            // Still queued: take it back, so it can never apply after the caller was told it failed
+            if (queue.remove(pending)) {
+                throw new IllegalStateException("Stock deduction timed out waiting for its batch");
+            }
+        }
+        // Already part of a batch whose transaction decides the outcome, so give that one more timeout
+        try {
+            pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Stock deduction did not finish within " + 2 * timeoutMs
+                    + " ms, its outcome is unknown");
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingDeduct> batch = new ArrayList<>(maxBatch);
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        while (running) {
+            try {
+                PendingDeduct first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // The window opens with the first request, so an idle system adds no latency beyond it
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingDeduct next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result().completeExceptionally(
+                        new IllegalStateException("Inventory service is shutting down")));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<PendingDeduct> batch) {
+        long now = System.nanoTime();
+        batch.forEach(pending -> queueTime.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS));
+        batchSize.record(batch.size());
+
+        try {
+            List<RuntimeException> failures = inventoryService.applyDeductBatch(
+                    batch.stream().map(PendingDeduct::requests).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                RuntimeException failure = failures.get(i);
+                if (failure == null) {
+                    batch.get(i).result().complete(null);
+                } else {
+                    batch.get(i).result().completeExceptionally(failure);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Batched stock deduction of {} request(s) failed: {}", batch.size(), e.getMessage(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private record PendingDeduct(List<InventoryCheckRequest> requests, long enqueuedAt,
+                                 CompletableFuture<Void> result) {
+    }
+}
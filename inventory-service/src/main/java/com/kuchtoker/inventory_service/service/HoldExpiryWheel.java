@@ -0,0 +1,73 @@
+package com.kuchtoker.inventory_service.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel for hold expiry. Scheduling is O(1) and each tick only looks at
+ * one bucket, so expiring holds never requires scanning every open hold.
+ */
+public class HoldExpiryWheel {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Queue<Timeout>[] buckets;
+    private final int mask;
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public HoldExpiryWheel(long tickMillis, int wheelSize, long startMillis) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = size - 1;
+        this.lastTick = -1;
+    }
+
+    public void schedule(String holdId, Instant expiresAt) {
+        long deadlineTick = Math.max(0, Math.ceilDiv(expiresAt.toEpochMilli() - startMillis, tickMillis));
+        synchronized (this) {
+            // Never drop into a bucket the sweeper has already passed for this revolution
+            deadlineTick = Math.max(deadlineTick, lastTick + 1);
+            buckets[(int) (deadlineTick & mask)].add(new Timeout(holdId, deadlineTick));
+        }
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis} and returns the holds whose deadline has passed.
+     */
+    public List<String> advance(long nowMillis) {
+        long currentTick = (nowMillis - startMillis) / tickMillis;
+        long fromTick;
+        synchronized (this) {
+            fromTick = lastTick + 1;
+            lastTick = Math.max(lastTick, currentTick);
+        }
+
+        List<String> dueHoldIds = new ArrayList<>();
+        // After a long pause every bucket is due once; there is no point in visiting them twice
+        long toTick = Math.min(currentTick, fromTick + buckets.length - 1);
+        for (long tick = fromTick; tick <= toTick; tick++) {
+            Iterator<Timeout> iterator = buckets[(int) (tick & mask)].iterator();
+            while (iterator.hasNext()) {
+                Timeout timeout = iterator.next();
+                if (timeout.deadlineTick() <= currentTick) {
+                    dueHoldIds.add(timeout.holdId());
+                    iterator.remove();
+                }
+            }
+        }
+        return dueHoldIds;
+    }
+
+    private record Timeout(String holdId, long deadlineTick) {
+    }
+}
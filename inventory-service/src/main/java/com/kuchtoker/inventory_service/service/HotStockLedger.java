@@ -0,0 +1,584 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.kuchtoker.inventory_service.model.Inventory;
+import com.kuchtoker.inventory_service.model.LedgerCheckpoint;
+import com.kuchtoker.inventory_service.repository.InventoryBatchRepository;
+import com.kuchtoker.inventory_service.repository.InventoryRepository;
+import com.kuchtoker.inventory_service.repository.LedgerCheckpointRepository;
+import com.kuchtoker.inventory_service.repository.LedgerCommitRepository;
+import com.kuchtoker.inventory_service.repository.StockOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Authoritative in-memory stock for the SKUs listed in {@code inventory.hot-skus}.
+ * <p>
+ * Counters are decremented with CAS, so hot SKUs never wait on a row lock. Every change is first
+ * appended to a local journal and forced to disk; a background flusher then applies the accumulated
+ * deltas to {@code t_inventory} together with the journal sequence it covers, so replaying the
+ * journal after a crash applies each change exactly once. A deduction is journaled before the
+ * caller's transaction commits, so it also writes a commit marker in that transaction; recovery
+ * skips deductions without one, and the flusher deletes a marker when it applies the deduction.
+ * <p>
+ * The counters and the journal are local to one JVM, so only one instance may run the ledger:
+ * it holds a lease on the checkpoint row and renews it while flushing. An instance that cannot
+ * take the lease fails to start. Deductions stop a third of the lease before it could expire
+ * unless a renewal succeeds in time, so a failing renewal never lets two ledgers sell the same
+ * stock; once that happens the ledger stays stopped until the instance restarts.
+ * <p>
+ * The lease holder publishes its hot SKUs on the checkpoint row. Every instance, whatever its own
+ * configuration, reads that list back every {@code inventory.ledger.hot-set-refresh-ms} and refuses
+ * to change the stock of those SKUs itself, so no deduction bypasses the counters. A copy older than
+ * three refreshes counts as unknown and blocks every stock change, and the lease holder waits that
+ * long after publishing before it reads the counters from the rows.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotStockLedger {
+
+    private static final String CHECKPOINT_NAME = "hot-stock-ledger";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HOT_SET_STALE_AFTER_REFRESHES = 3;
+    private static final byte DEDUCTION_RECORD = 1;
+    private static final byte CREDIT_RECORD = 2;
+    private static final int MARKER_DELETE_BATCH = 1000;
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final LedgerCheckpointRepository ledgerCheckpointRepository;
+    private final LedgerCommitRepository ledgerCommitRepository;
+    private final StockOutboxRepository stockOutboxRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.hot-skus:}")
+    private List<String> hotSkuCodes;
+
+    @Value("${inventory.ledger.journal-dir:./data/ledger}")
+    private String journalDir;
+
+    @Value("${inventory.ledger.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${inventory.ledger.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${inventory.ledger.hot-set-refresh-ms:1000}")
+    private long hotSetRefreshMs;
+
+    private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+    private final Object journalLock = new Object();
+    private final List<ClosedSegment> closedSegments = new ArrayList<>();
+    private final String owner = UUID.randomUUID().toString();
+    private Map<String, Integer> pendingDeltas = new HashMap<>();
+    // Deductions whose transaction has not finished, and committed ones whose marker the next flush deletes
+    private final NavigableSet<Long> inFlightSequences = new TreeSet<>();
+    private List<Long> committedSequences = new ArrayList<>();
+    private FileChannel journal;
+    private Path journalPath;
+    private long sequence;
+    private ScheduledExecutorService flusher;
+    private ScheduledExecutorService hotSetRefresher;
+    private volatile Set<String> publishedHotSkuCodes = Set.of();
+    private volatile long hotSetRefreshedAtMillis;
+    // Local deadline for deductions, counted from before the last successful renewal; 0 once the lease is lost
+    private volatile long leaseValidUntilMillis;
+    private long leaseRenewedAtMillis;
+
+    @PostConstruct
+    void start() throws IOException, InterruptedException {
+        refreshHotSet();
+        hotSetRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("hot-stock-ledger-refresher")
+                .daemon()
+                .unstarted(runnable));
+        hotSetRefresher.scheduleWithFixedDelay(this::refreshHotSetQuietly, hotSetRefreshMs, hotSetRefreshMs,
+                TimeUnit.MILLISECONDS);
+
+        Path directory = Paths.get(journalDir);
+        Files.createDirectories(directory);
+
+        boolean journaled = !listSegments(directory).isEmpty();
+        if (hotSkuCodes.isEmpty() && !journaled) {
+            return;
+        }
+        ensureCheckpoint();
+        if (!renewLease()) {
+            throw new IllegalStateException("Hot stock ledger is run by another instance; "
+                    + "inventory.hot-skus must only be set on one instance");
+        }
+
+        // Always replay, or deltas journaled before hot-skus was emptied would never reach t_inventory
+        sequence = recover(directory);
+        if (hotSkuCodes.isEmpty()) {
+            releaseLease();
+            return;
+        }
+
+        List<String> stockedSkuCodes = inventoryRepository.findAllBySkuCodeIn(hotSkuCodes).stream()
+                .map(Inventory::getSkuCode)
+                .toList();
+        List<String> unknownSkuCodes = hotSkuCodes.stream().filter(skuCode -> !stockedSkuCodes.contains(skuCode)).toList();
+        if (!unknownSkuCodes.isEmpty()) {
+            log.warn("Hot SKUs without an inventory row stay on the database path: {}", unknownSkuCodes);
+        }
+        Integer published = transactionTemplate.execute(status -> ledgerCheckpointRepository.publishHotSkuCodes(
+                CHECKPOINT_NAME, owner, String.join(",", stockedSkuCodes)));
+        if (published == null || published == 0) {
+            throw new IllegalStateException("Hot stock ledger lost its lease while starting");
+        }
+
+        // Until every instance has seen the list, or given up on its stale copy, one may still deduct a row
+        Thread.sleep(hotSetMaxAgeMillis());
+        // Locking the rows waits for any such deduction still in flight, so the counters include it
+        Map<String, Integer> quantities = transactionTemplate.execute(status ->
+                inventoryBatchRepository.lockQuantities(stockedSkuCodes));
+        quantities.forEach((skuCode, quantity) -> counters.put(skuCode, new AtomicInteger(quantity)));
+
+        journal = openSegment(directory, sequence + 1);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("hot-stock-ledger-flusher")
+                .daemon()
+                .unstarted(runnable));
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Hot stock ledger serving {} SKU(s) from memory", counters.size());
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        hotSetRefresher.shutdownNow();
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+        boolean inFlight;
+        synchronized (journalLock) {
+            journal.close();
+            inFlight = !inFlightSequences.isEmpty();
+        }
+        if (inFlight) {
+            // Their markers decide on the next start, so other instances must keep away from the rows until then
+            log.warn("Stopping with hot deductions still in flight; keeping the lease until the journal is recovered");
+            return;
+        }
+        releaseLease();
+    }
+
+    public boolean isHot(String skuCode) {
+        return counters.containsKey(skuCode);
+    }
+
+    /**
+     * Whether the SKU is served from memory by the ledger of another instance, so this one must not touch its row.
+     */
+    public boolean isHeldElsewhere(String skuCode) {
+        return !counters.containsKey(skuCode) && publishedHotSkuCodes.contains(skuCode);
+    }
+
+    /**
+     * Fails unless this instance may change the stored stock of every given SKU.
+     */
+    public void checkNotHeldElsewhere(Collection<String> skuCodes) {
+        if (System.currentTimeMillis() - hotSetRefreshedAtMillis > hotSetMaxAgeMillis()) {
+            throw new IllegalStateException("The list of hot SKUs could not be refreshed, refusing to change stock");
+        }
+        List<String> heldElsewhere = skuCodes.stream().filter(this::isHeldElsewhere).toList();
+        if (!heldElsewhere.isEmpty()) {
+            throw new IllegalStateException("Stock of " + heldElsewhere + " is served by the hot stock ledger of another instance");
+        }
+    }
+
+    public int available(String skuCode) {
+        return counters.get(skuCode).get();
+    }
+
+    /**
+     * Returns the SKUs that could not currently cover the requested quantity, without changing anything.
+     */
+    public List<String> findShort(Map<String, Integer> quantities) {
+        return quantities.entrySet().stream()
+                .filter(entry -> counters.get(entry.getKey()).get() < entry.getValue())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Deducts every SKU or none of them, as part of the caller's transaction: the deduction is
+     * durable once that transaction commits and handed back if it does not. A non-empty result
+     * holds the SKUs that were short.
+     */
+    public List<String> deduct(Map<String, Integer> quantities) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Hot stock can only be deducted inside a transaction");
+        }
+        if (System.currentTimeMillis() >= leaseValidUntilMillis) {
+            throw new IllegalStateException("Hot stock ledger lost its lease and no longer deducts stock");
+        }
+        Map<String, Integer> applied = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            AtomicInteger counter = counters.get(entry.getKey());
+            int requested = entry.getValue();
+            int current;
+            do {
+                current = counter.get();
+            } while (current >= requested && !counter.compareAndSet(current, current - requested));
+
+            if (current < requested) {
+                applied.forEach((skuCode, quantity) -> counters.get(skuCode).addAndGet(quantity));
+                List<String> shortSkuCodes = new ArrayList<>(findShort(quantities));
+                if (!shortSkuCodes.contains(entry.getKey())) {
+                    shortSkuCodes.add(entry.getKey());
+                }
+                return shortSkuCodes;
+            }
+            applied.put(entry.getKey(), requested);
+        }
+
+        Map<String, Integer> deltas = new HashMap<>();
+        applied.forEach((skuCode, quantity) -> deltas.put(skuCode, -quantity));
+        long recordSequence;
+        try {
+            recordSequence = appendToJournal(DEDUCTION_RECORD, deltas);
+        } catch (RuntimeException e) {
+            applied.forEach((skuCode, quantity) -> counters.get(skuCode).addAndGet(quantity));
+            throw e;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                settle(recordSequence, deltas, status);
+            }
+        });
+        ledgerCommitRepository.insert(recordSequence);
+        return List.of();
+    }
+
+    /**
+     * Adds stock whose database side has already committed.
+     */
+    public void credit(Map<String, Integer> quantities) {
+        appendToJournal(CREDIT_RECORD, quantities);
+        quantities.forEach((skuCode, quantity) -> counters.get(skuCode).addAndGet(quantity));
+    }
+
+    private void settle(long recordSequence, Map<String, Integer> deltas, int status) {
+        if (status == TransactionSynchronization.STATUS_UNKNOWN) {
+            // Only the marker knows; keep the stock deducted and the record in flight so recovery decides
+            log.error("Outcome of hot deduction {} is unknown, it is settled from the journal on the next start", recordSequence);
+            return;
+        }
+        synchronized (journalLock) {
+            inFlightSequences.remove(recordSequence);
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                deltas.forEach((skuCode, delta) -> pendingDeltas.merge(skuCode, delta, Integer::sum));
+                committedSequences.add(recordSequence);
+            }
+        }
+        if (status != TransactionSynchronization.STATUS_COMMITTED) {
+            deltas.forEach((skuCode, delta) -> counters.get(skuCode).addAndGet(-delta));
+        }
+    }
+
+    private long appendToJournal(byte type, Map<String, Integer> deltas) {
+        synchronized (journalLock) {
+            long recordSequence = sequence + 1;
+            long position = -1;
+            try {
+                position = journal.size();
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream record = new DataOutputStream(bytes);
+                record.writeLong(recordSequence);
+                record.writeByte(type);
+                record.writeInt(deltas.size());
+                for (Map.Entry<String, Integer> entry : deltas.entrySet()) {
+                    record.writeUTF(entry.getKey());
+                    record.writeInt(entry.getValue());
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    journal.write(buffer);
+                }
+                journal.force(false);
+            } catch (IOException e) {
+                truncateJournal(position);
+                throw new UncheckedIOException("Could not append to the stock journal", e);
+            }
+            sequence = recordSequence;
+            if (type == DEDUCTION_RECORD) {
+                inFlightSequences.add(recordSequence);
+            } else {
+                deltas.forEach((skuCode, delta) -> pendingDeltas.merge(skuCode, delta, Integer::sum));
+            }
+            return recordSequence;
+        }
+    }
+
+    private void truncateJournal(long position) {
+        // Drop a partially written record so later appends are not read back behind it
+        if (position < 0) {
+            return;
+        }
+        try {
+            journal.truncate(position);
+        } catch (IOException e) {
+            log.error("Could not truncate the stock journal after a failed append: {}", e.getMessage(), e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            if (leaseValidUntilMillis > 0 && System.currentTimeMillis() - leaseRenewedAtMillis > leaseMs / 3) {
+                renewOrStop();
+            }
+            flush();
+        } catch (Exception e) {
+            log.error("Hot stock ledger flush failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    private void flush() throws IOException {
+        Map<String, Integer> snapshot;
+        List<Long> markers;
+        long flushedSequence;
+        List<ClosedSegment> segmentsToDelete;
+        synchronized (journalLock) {
+            if (pendingDeltas.isEmpty()) {
+                return;
+            }
+            snapshot = pendingDeltas;
+            pendingDeltas = new HashMap<>();
+            markers = committedSequences;
+            committedSequences = new ArrayList<>();
+            // Credits up to here are all in the snapshot; deductions are settled by their markers instead
+            flushedSequence = sequence;
+
+            // Rotate so the flushed records live in closed segments that can be dropped after commit,
+            // except those that still hold a deduction whose transaction has not finished
+            Path current = journalPath;
+            journal.close();
+            closedSegments.add(new ClosedSegment(current, sequence));
+            journal = openSegment(current.getParent(), sequence + 1);
+            long oldestInFlight = inFlightSequences.isEmpty() ? Long.MAX_VALUE : inFlightSequences.first();
+            segmentsToDelete = closedSegments.stream()
+                    .filter(segment -> segment.lastSequence() < oldestInFlight)
+                    .toList();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                inventoryBatchRepository.applyDeltas(snapshot);
+                queueStockChanges(snapshot);
+                for (int from = 0; from < markers.size(); from += MARKER_DELETE_BATCH) {
+                    ledgerCommitRepository.deleteByJournalSequenceIn(
+                            markers.subList(from, Math.min(from + MARKER_DELETE_BATCH, markers.size())));
+                }
+                ledgerCheckpointRepository.updateLastSequence(CHECKPOINT_NAME, flushedSequence);
+            });
+        } catch (RuntimeException e) {
+            synchronized (journalLock) {
+                snapshot.forEach((skuCode, delta) -> pendingDeltas.merge(skuCode, delta, Integer::sum));
+                committedSequences.addAll(markers);
+            }
+            throw e;
+        }
+
+        synchronized (journalLock) {
+            closedSegments.removeAll(segmentsToDelete);
+        }
+        for (ClosedSegment segment : segmentsToDelete) {
+            Files.deleteIfExists(segment.path());
+        }
+    }
+
+    private void refreshHotSetQuietly() {
+        try {
+            refreshHotSet();
+        } catch (Exception e) {
+            log.error("Could not refresh the list of hot SKUs: {}", e.getMessage(), e);
+        }
+    }
+
+    private void refreshHotSet() {
+        // Stamped before reading, so the copy is never considered younger than it is
+        long readAtMillis = System.currentTimeMillis();
+        String hotSkuCodeList = ledgerCheckpointRepository.findById(CHECKPOINT_NAME)
+                .map(LedgerCheckpoint::getHotSkuCodes)
+                .orElse(null);
+        publishedHotSkuCodes = hotSkuCodeList == null || hotSkuCodeList.isBlank()
+                ? Set.of()
+                : Set.copyOf(Arrays.asList(hotSkuCodeList.split(",")));
+        hotSetRefreshedAtMillis = readAtMillis;
+    }
+
+    private long hotSetMaxAgeMillis() {
+        return hotSetRefreshMs * HOT_SET_STALE_AFTER_REFRESHES;
+    }
+
+    private void queueStockChanges(Map<String, Integer> deltas) {
+        // Queued with the rows they changed and without a quantity, so the relay reads the flushed total
+        Map<String, Integer> changes = new HashMap<>(deltas);
+        changes.values().removeIf(delta -> delta == 0);
+        if (!changes.isEmpty()) {
+            stockOutboxRepository.insertAll(changes, Map.of(), Instant.now());
+        }
+    }
+
+    private void ensureCheckpoint() {
+        if (!ledgerCheckpointRepository.existsById(CHECKPOINT_NAME)) {
+            ledgerCheckpointRepository.save(new LedgerCheckpoint(CHECKPOINT_NAME, 0L, null, null, null));
+        }
+    }
+
+    private void renewOrStop() {
+        // Deductions may already have stopped, and another instance may have taken over since; never resume
+        if (System.currentTimeMillis() >= leaseValidUntilMillis) {
+            leaseValidUntilMillis = 0;
+            log.error("Hot stock ledger lease could not be renewed in time; hot SKUs can no longer be deducted until restart");
+        } else if (!renewLease()) {
+            log.error("Hot stock ledger lease was taken over by another instance; hot SKUs can no longer be deducted");
+        }
+    }
+
+    private boolean renewLease() {
+        Instant now = Instant.now();
+        Integer updated = transactionTemplate.execute(status ->
+                ledgerCheckpointRepository.acquireLease(CHECKPOINT_NAME, owner, now.plusMillis(leaseMs), now));
+        if (updated == null || updated == 0) {
+            leaseValidUntilMillis = 0;
+            return false;
+        }
+        // The margin absorbs clock skew between instances and the time the renewal took
+        leaseValidUntilMillis = now.toEpochMilli() + leaseMs - leaseMs / 3;
+        leaseRenewedAtMillis = now.toEpochMilli();
+        return true;
+    }
+
+    private void releaseLease() {
+        leaseValidUntilMillis = 0;
+        transactionTemplate.executeWithoutResult(status -> ledgerCheckpointRepository.releaseLease(CHECKPOINT_NAME, owner));
+    }
+
+    private List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long recover(Path directory) throws IOException {
+        long checkpointSequence = ledgerCheckpointRepository.findById(CHECKPOINT_NAME)
+                .map(LedgerCheckpoint::getLastSequence)
+                .orElse(0L);
+
+        List<Path> segments = listSegments(directory);
+        Set<Long> markers = new HashSet<>(ledgerCommitRepository.findAllJournalSequences());
+
+        Map<String, Integer> replayDeltas = new HashMap<>();
+        Set<Long> matchedMarkers = new HashSet<>();
+        long lastSequence = checkpointSequence;
+        for (Path segment : segments) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                while (true) {
+                    long recordSequence;
+                    byte type;
+                    Map<String, Integer> deltas = new HashMap<>();
+                    try {
+                        recordSequence = in.readLong();
+                        type = in.readByte();
+                        int size = in.readInt();
+                        for (int i = 0; i < size; i++) {
+                            deltas.put(in.readUTF(), in.readInt());
+                        }
+                    } catch (EOFException e) {
+                        // A torn tail record was never forced, so it was never acknowledged either
+                        break;
+                    }
+                    lastSequence = Math.max(lastSequence, recordSequence);
+                    // A deduction counts only if its transaction committed and it was not flushed yet;
+                    // a credit was journaled after its commit, so the checkpoint alone decides
+                    boolean unapplied = type == DEDUCTION_RECORD
+                            ? markers.contains(recordSequence)
+                            : recordSequence > checkpointSequence;
+                    if (unapplied) {
+                        deltas.forEach((skuCode, delta) -> replayDeltas.merge(skuCode, delta, Integer::sum));
+                        if (type == DEDUCTION_RECORD) {
+                            matchedMarkers.add(recordSequence);
+                        }
+                    }
+                }
+            }
+        }
+        if (!matchedMarkers.containsAll(markers)) {
+            throw new IllegalStateException("Committed hot deductions are missing from the journal in " + directory
+                    + "; start the ledger where the previous one left its journal");
+        }
+
+        long replayedSequence = lastSequence;
+        if (!replayDeltas.isEmpty() || !markers.isEmpty()) {
+            log.info("Replaying {} unflushed stock delta(s) from the journal up to sequence {}",
+                    replayDeltas.size(), replayedSequence);
+            transactionTemplate.executeWithoutResult(status -> {
+                inventoryBatchRepository.applyDeltas(replayDeltas);
+                queueStockChanges(replayDeltas);
+                ledgerCommitRepository.deleteAllInBatch();
+                ledgerCheckpointRepository.updateLastSequence(CHECKPOINT_NAME, replayedSequence);
+            });
+        }
+        for (Path segment : segments) {
+            Files.delete(segment);
+        }
+        return lastSequence;
+    }
+
+    private record ClosedSegment(Path path, long lastSequence) {
+    }
+
+    private FileChannel openSegment(Path directory, long firstSequence) throws IOException {
+        journalPath = directory.resolve(SEGMENT_PREFIX + String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+        return FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+}
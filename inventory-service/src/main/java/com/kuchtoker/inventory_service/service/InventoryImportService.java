@@ -0,0 +1,140 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kuchtoker.inventory_service.dto.InventoryCheckRequest;
+import com.kuchtoker.inventory_service.dto.InventoryImportResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams NDJSON or CSV stock rows into the inventory in bounded chunks, so memory use
+ * depends on the chunk size and not on the size of the upload.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final InventoryService inventoryService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${inventory.import.chunk-size:1000}")
+    private int chunkSize;
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    public InventoryImportResponse importStock(InputStream input, Format format) throws IOException {
+        log.info("Inside InventoryImportService::importStock with format {}", format);
+
+        long startNanos = System.nanoTime();
+        ImportProgress progress = new ImportProgress();
+        Map<String, Integer> chunk = new HashMap<>();
+        long chunkRows = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                    continue;
+                }
+
+                InventoryCheckRequest row;
+                try {
+                    row = format == Format.CSV ? parseCsv(line) : objectMapper.readValue(line, InventoryCheckRequest.class);
+                    if (row.getSkuCode() == null || row.getSkuCode().isBlank() || row.getQuantity() < 0) {
+                        throw new IllegalArgumentException("skuCode is required and quantity must not be negative");
+                    }
+                } catch (IOException | RuntimeException e) {
+                    progress.reject(1, "Line " + lineNumber + ": " + e.getMessage());
+                    continue;
+                }
+
+                chunk.merge(row.getSkuCode(), row.getQuantity(), Integer::sum);
+                chunkRows++;
+                if (chunk.size() >= chunkSize) {
+                    applyChunk(chunk, chunkRows, progress);
+                    chunk.clear();
+                    chunkRows = 0;
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, chunkRows, progress);
+        }
+
+        long elapsedNanos = Math.max(System.nanoTime() - startNanos, 1);
+        double rowsPerSecond = progress.imported * 1_000_000_000d / elapsedNanos;
+        log.info("Imported {} stock row(s) in {} chunk(s), rejected {}, {} rows/s",
+                progress.imported, progress.chunks, progress.rejected, Math.round(rowsPerSecond));
+
+        return InventoryImportResponse.builder()
+                .rowsImported(progress.imported)
+                .rowsRejected(progress.rejected)
+                .chunks(progress.chunks)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .errors(progress.errors)
+                .build();
+    }
+
+    private void applyChunk(Map<String, Integer> chunk, long rows, ImportProgress progress) {
+        progress.chunks++;
+        try {
+            inventoryService.importChunk(chunk);
+            progress.imported += rows;
+        } catch (RuntimeException e) {
+            // Earlier chunks are committed, so keep going and report this one like rejected rows
+            log.error("Stock import chunk of {} SKU(s) failed: {}", chunk.size(), e.getMessage(), e);
+            String cause = e instanceof DataAccessException dataAccessException
+                    ? dataAccessException.getMostSpecificCause().getMessage()
+                    : e.getMessage();
+            progress.reject(rows, "Chunk " + progress.chunks + " failed: " + cause);
+        }
+    }
+
+    private boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase().startsWith("skucode") || line.trim().toLowerCase().startsWith("sku_code");
+    }
+
+    private InventoryCheckRequest parseCsv(String line) {
+        String[] columns = line.split(",", -1);
+        if (columns.length != 2) {
+            throw new IllegalArgumentException("Expected skuCode,quantity");
+        }
+        return new InventoryCheckRequest(columns[0].trim(), Integer.parseInt(columns[1].trim()));
+    }
+
+    private static class ImportProgress {
+        private long imported;
+        private long rejected;
+        private long chunks;
+        private final List<String> errors = new ArrayList<>();
+
+        private void reject(long rows, String error) {
+            rejected += rows;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package com.kuchtoker.inventory_service.service;
 
 import com.kuchtoker.inventory_service.dto.InventoryCheckRequest;
+import com.kuchtoker.inventory_service.event.StockChangedEvent;
+import com.kuchtoker.inventory_service.exception.InsufficientStockException;
 import com.kuchtoker.inventory_service.model.Inventory;
+import com.kuchtoker.inventory_service.repository.InventoryBatchRepository;
 import com.kuchtoker.inventory_service.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,36 +31,200 @@ import java.util.stream.Collectors;
 public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final HotStockLedger hotStockLedger;
+    private final ShardedStockStore shardedStockStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
 
+    private Counter failedLedgerCredits;
+
+    @PostConstruct
+    void init() {
+        failedLedgerCredits = Counter.builder("inventory.hot-ledger.credit.failed")
+                .description("Hot ledger credits that failed after their transaction completed; the stock is missing from the ledger")
+                .register(meterRegistry);
+    }
+
+    @Transactional
     public void checkAndDeductStock(List<InventoryCheckRequest> requests) {
         log.info("Inside InventoryService::checkAndDeductStock");
 
-        // Validate stock availability
-        for (InventoryCheckRequest request : requests) {
-            Inventory inventory = inventoryRepository.findBySkuCode(request.getSkuCode())
-                    .orElseThrow(() -> new RuntimeException("SKU not found: " + request.getSkuCode()));
+        Map<String, Integer> requestedQuantities = aggregateBySkuCode(requests);
+        hotStockLedger.checkNotHeldElsewhere(requestedQuantities.keySet());
+        Map<String, Integer> coldQuantities = new TreeMap<>(requestedQuantities);
+        Map<String, Integer> hotQuantities = extractHotSkus(coldQuantities);
+        Map<String, Integer> shardedQuantities = extractShardedSkus(coldQuantities);
 
-            log.info("inventory.getQuantity(): {} < request.getQuantity(): {}", inventory.getQuantity(), request.getQuantity());
+        // Deduct every cold SKU with one conditional update batch; a short row matches nothing
+        List<String> shortSkuCodes = new ArrayList<>();
+        if (!coldQuantities.isEmpty()) {
+            shortSkuCodes.addAll(inventoryBatchRepository.deductIfAvailable(coldQuantities));
+        }
+        if (!shardedQuantities.isEmpty()) {
+            shortSkuCodes.addAll(shardedStockStore.deduct(shardedQuantities));
+        }
+        if (!shortSkuCodes.isEmpty()) {
+            shortSkuCodes.addAll(hotStockLedger.findShort(hotQuantities));
+            throw insufficientStock(shortSkuCodes);
+        }
 
-            if (inventory.getQuantity() < request.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for SKU: " + request.getSkuCode());
+        if (!hotQuantities.isEmpty()) {
+            List<String> shortHotSkuCodes = hotStockLedger.deduct(hotQuantities);
+            if (!shortHotSkuCodes.isEmpty()) {
+                throw insufficientStock(shortHotSkuCodes);
             }
         }
+        publishStockChanged(negate(requestedQuantities));
+    }
 
-        // Deduct stock
-        for (InventoryCheckRequest request : requests) {
-            Inventory inventory = inventoryRepository.findBySkuCode(request.getSkuCode()).get();
-            inventory.setQuantity(inventory.getQuantity() - request.getQuantity());
-            inventoryRepository.save(inventory);
+    /**
+     * Puts previously deducted stock back, e.g. for a released or expired hold.
+     */
+    @Transactional
+    public void returnStock(Map<String, Integer> quantities) {
+        log.info("Inside InventoryService::returnStock for {} SKU(s)", quantities.size());
+
+        hotStockLedger.checkNotHeldElsewhere(quantities.keySet());
+        Map<String, Integer> coldQuantities = new TreeMap<>(quantities);
+        Map<String, Integer> hotQuantities = extractHotSkus(coldQuantities);
+        Map<String, Integer> shardedQuantities = extractShardedSkus(coldQuantities);
+        if (!coldQuantities.isEmpty()) {
+            inventoryBatchRepository.applyDeltas(coldQuantities);
+        }
+        if (!shardedQuantities.isEmpty()) {
+            shardedStockStore.credit(shardedQuantities);
+        }
+        if (!hotQuantities.isEmpty()) {
+            runAfterCommit(() -> creditLedger(hotQuantities));
+        }
+        publishStockChanged(quantities);
+    }
+
+    /**
+     * Adds one chunk of a bulk import. Plain SKUs are upserted in a single batch; hot and
+     * sharded SKUs go through their own stores, exactly like check-and-add.
+     */
+    @Transactional
+    public void importChunk(Map<String, Integer> quantities) {
+        hotStockLedger.checkNotHeldElsewhere(quantities.keySet());
+        Map<String, Integer> coldQuantities = new TreeMap<>(quantities);
+        Map<String, Integer> hotQuantities = extractHotSkus(coldQuantities);
+        Map<String, Integer> shardedQuantities = extractShardedSkus(coldQuantities);
+        if (!coldQuantities.isEmpty()) {
+            inventoryBatchRepository.upsertAdd(coldQuantities);
+        }
+        if (!shardedQuantities.isEmpty()) {
+            shardedStockStore.credit(shardedQuantities);
+        }
+        if (!hotQuantities.isEmpty()) {
+            runAfterCommit(() -> creditLedger(hotQuantities));
         }
+        publishStockChanged(quantities);
     }
 
+    /**
+     * Whether the request touches SKUs that are not kept in a single {@code t_inventory} row,
+     * including hot SKUs of another instance's ledger that this one has to reject.
+     */
+    public boolean bypassesInventoryRows(List<InventoryCheckRequest> requests) {
+        return requests.stream().anyMatch(request -> hotStockLedger.isHot(request.getSkuCode())
+                || hotStockLedger.isHeldElsewhere(request.getSkuCode())
+                || shardedStockStore.isSharded(request.getSkuCode()));
+    }
+
+    /**
+     * Applies several independent deductions in one transaction. Each order is still all-or-nothing:
+     * the returned list holds, per order, the exception it failed with or {@code null} on success.
+     */
+    @Transactional
+    public List<RuntimeException> applyDeductBatch(List<List<InventoryCheckRequest>> orders) {
+        log.info("Inside InventoryService::applyDeductBatch with {} order(s)", orders.size());
+
+        List<Map<String, Integer>> orderQuantities = new ArrayList<>(orders.size());
+        List<RuntimeException> failures = new ArrayList<>(orders.size());
+        Set<String> skuCodes = new TreeSet<>();
+        for (List<InventoryCheckRequest> order : orders) {
+            try {
+                Map<String, Integer> quantities = aggregateBySkuCode(order);
+                skuCodes.addAll(quantities.keySet());
+                orderQuantities.add(quantities);
+                failures.add(null);
+            } catch (IllegalArgumentException e) {
+                orderQuantities.add(Map.of());
+                failures.add(e);
+            }
+        }
+
+        // Lock every touched row once, then allocate orders in arrival order against the snapshot
+        hotStockLedger.checkNotHeldElsewhere(skuCodes);
+        Map<String, Integer> available = inventoryBatchRepository.lockQuantities(skuCodes);
+        Map<String, Integer> totalDeductions = new TreeMap<>();
+        for (int i = 0; i < orderQuantities.size(); i++) {
+            if (failures.get(i) != null) {
+                continue;
+            }
+            Map<String, Integer> quantities = orderQuantities.get(i);
+            List<String> missingSkuCodes = new ArrayList<>();
+            List<String> insufficientSkuCodes = new ArrayList<>();
+            quantities.forEach((skuCode, quantity) -> {
+                Integer availableQuantity = available.get(skuCode);
+                if (availableQuantity == null) {
+                    missingSkuCodes.add(skuCode);
+                } else if (availableQuantity < quantity) {
+                    insufficientSkuCodes.add(skuCode);
+                }
+            });
+
+            if (missingSkuCodes.isEmpty() && insufficientSkuCodes.isEmpty()) {
+                quantities.forEach((skuCode, quantity) -> {
+                    available.merge(skuCode, -quantity, Integer::sum);
+                    totalDeductions.merge(skuCode, quantity, Integer::sum);
+                });
+            } else {
+                failures.set(i, new InsufficientStockException(missingSkuCodes, insufficientSkuCodes));
+            }
+        }
+
+        if (!totalDeductions.isEmpty()) {
+            List<String> shortSkuCodes = inventoryBatchRepository.deductIfAvailable(totalDeductions);
+            if (!shortSkuCodes.isEmpty()) {
+                // Cannot happen while the rows are locked; fail the whole batch rather than oversell
+                throw new IllegalStateException("Locked stock changed during batch deduction: " + shortSkuCodes);
+            }
+            publishStockChanged(negate(totalDeductions));
+        }
+        return failures;
+    }
+
+    @Transactional
     public void checkAndAddStock(List<InventoryCheckRequest> requests) {
         log.info("Inside InventoryService::checkAndAddStock");
 
+        hotStockLedger.checkNotHeldElsewhere(requests.stream().map(InventoryCheckRequest::getSkuCode).toList());
+        // Hot SKUs are credited in the ledger once the database part has committed
+        Map<String, Integer> hotQuantities = new TreeMap<>();
+        Map<String, Integer> shardedQuantities = new TreeMap<>();
+        List<InventoryCheckRequest> coldRequests = new ArrayList<>();
+        for (InventoryCheckRequest request : requests) {
+            if (hotStockLedger.isHot(request.getSkuCode())) {
+                hotQuantities.merge(request.getSkuCode(), request.getQuantity(), Integer::sum);
+            } else if (shardedStockStore.isSharded(request.getSkuCode())) {
+                shardedQuantities.merge(request.getSkuCode(), request.getQuantity(), Integer::sum);
+            } else {
+                coldRequests.add(request);
+            }
+        }
+        if (!shardedQuantities.isEmpty()) {
+            shardedStockStore.credit(shardedQuantities);
+        }
+        if (!hotQuantities.isEmpty()) {
+            runAfterCommit(() -> creditLedger(hotQuantities));
+        }
+
         // Build map for fast lookup
         Map<String, Inventory> existingInventoryMap = inventoryRepository
-                .findAllBySkuCodeIn(requests.stream()
+                .findAllBySkuCodeIn(coldRequests.stream()
                         .map(InventoryCheckRequest::getSkuCode)
                         .toList())
                 .stream()
@@ -55,7 +232,7 @@ public class InventoryService {
 
         List<Inventory> inventoriesToSave = new ArrayList<>();
 
-        for (InventoryCheckRequest request : requests) {
+        for (InventoryCheckRequest request : coldRequests) {
             Inventory inventory = existingInventoryMap.get(request.getSkuCode());
 
             if (inventory != null) {
@@ -73,7 +250,95 @@ public class InventoryService {
             inventoriesToSave.add(inventory);
         }
 
-        inventoryRepository.saveAll(inventoriesToSave);
+        // Flushed so the outbox writer reads the new quantities before commit
+        inventoryRepository.saveAllAndFlush(inventoriesToSave);
+
+        Map<String, Integer> deltas = new TreeMap<>();
+        requests.forEach(request -> deltas.merge(request.getSkuCode(), request.getQuantity(), Integer::sum));
+        publishStockChanged(deltas);
     }
 
+    private Map<String, Integer> aggregateBySkuCode(List<InventoryCheckRequest> requests) {
+        // Sorted so that concurrent deductions lock rows in the same order
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (InventoryCheckRequest request : requests) {
+            if (request.getSkuCode() == null || request.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid inventory request: " + request);
+            }
+            quantities.merge(request.getSkuCode(), request.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private Map<String, Integer> extractHotSkus(Map<String, Integer> quantities) {
+        Map<String, Integer> hotQuantities = new TreeMap<>();
+        quantities.entrySet().removeIf(entry -> {
+            if (hotStockLedger.isHot(entry.getKey())) {
+                hotQuantities.put(entry.getKey(), entry.getValue());
+                return true;
+            }
+            return false;
+        });
+        return hotQuantities;
+    }
+
+    private Map<String, Integer> extractShardedSkus(Map<String, Integer> quantities) {
+        Map<String, Integer> shardedQuantities = new TreeMap<>();
+        quantities.entrySet().removeIf(entry -> {
+            if (shardedStockStore.isSharded(entry.getKey())) {
+                shardedQuantities.put(entry.getKey(), entry.getValue());
+                return true;
+            }
+            return false;
+        });
+        return shardedQuantities;
+    }
+
+    private void publishStockChanged(Map<String, Integer> deltas) {
+        // Delivered to @TransactionalEventListener beans: the outbox before commit, caches after it
+        eventPublisher.publishEvent(new StockChangedEvent(Map.copyOf(deltas)));
+    }
+
+    private Map<String, Integer> negate(Map<String, Integer> quantities) {
+        Map<String, Integer> deltas = new TreeMap<>();
+        quantities.forEach((skuCode, quantity) -> deltas.put(skuCode, -quantity));
+        return deltas;
+    }
+
+    private void creditLedger(Map<String, Integer> quantities) {
+        // Runs after completion, where nobody would see an exception, so it must at least be visible here
+        try {
+            hotStockLedger.credit(quantities);
+        } catch (RuntimeException e) {
+            failedLedgerCredits.increment();
+            log.error("Could not credit {} back to the hot stock ledger; the stock stays missing until corrected: {}",
+                    quantities, e.getMessage(), e);
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private InsufficientStockException insufficientStock(List<String> shortSkuCodes) {
+        Set<String> existingSkuCodes = inventoryRepository.findAllBySkuCodeIn(shortSkuCodes)
+                .stream()
+                .map(Inventory::getSkuCode)
+                .collect(Collectors.toSet());
+
+        List<String> missingSkuCodes = shortSkuCodes.stream()
+                .filter(skuCode -> !existingSkuCodes.contains(skuCode))
+                .toList();
+        List<String> insufficientSkuCodes = shortSkuCodes.stream()
+                .filter(existingSkuCodes::contains)
+                .toList();
+
+        log.info("Stock deduction rejected, missing: {}, insufficient: {}", missingSkuCodes, insufficientSkuCodes);
+        return new InsufficientStockException(missingSkuCodes, insufficientSkuCodes);
+    }
 }
@@ -0,0 +1,171 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.kuchtoker.inventory_service.repository.InventoryBucketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock split across {@code inventory.sharding.buckets} rows per SKU, so concurrent deductions of
+ * one SKU usually lock different rows. All methods join the caller's transaction.
+ * <p>
+ * Whether a SKU is sharded is decided by its bucket rows in the database, which every instance
+ * reads back every {@code inventory.sharding.refresh-ms}. Configuration only asks for a change at
+ * startup: SKUs in {@code inventory.sharding.skus} are split, and SKUs in
+ * {@code inventory.sharding.merge-skus} are moved back into their single row. An instance that has
+ * not seen a change yet keeps working on the row, which still counts towards the SKU's stock.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShardedStockStore {
+
+    private final InventoryBucketRepository inventoryBucketRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.sharding.skus:}")
+    private List<String> shardedSkuCodes;
+
+    @Value("${inventory.sharding.merge-skus:}")
+    private List<String> mergeSkuCodes;
+
+    @Value("${inventory.sharding.buckets:8}")
+    private int buckets;
+
+    @Value("${inventory.sharding.refresh-ms:1000}")
+    private long refreshMs;
+
+    @Value("${inventory.hot-skus:}")
+    private List<String> hotSkuCodes;
+
+    // Bucket count per SKU as stored, which may differ from the configured count after a change
+    private volatile Map<String, Integer> bucketCounts = Map.of();
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    void start() {
+        for (String skuCode : mergeSkuCodes) {
+            if (shardedSkuCodes.contains(skuCode)) {
+                log.warn("SKU {} is configured to be both split and merged, leaving it as it is", skuCode);
+                continue;
+            }
+            Integer merged = transactionTemplate.execute(status -> inventoryBucketRepository.mergeBuckets(skuCode));
+            if (merged != null && merged > 0) {
+                log.info("Merged {} stock bucket(s) of SKU {} back into its inventory row", merged, skuCode);
+            }
+        }
+        for (String skuCode : shardedSkuCodes) {
+            if (hotSkuCodes.contains(skuCode) || mergeSkuCodes.contains(skuCode)) {
+                log.warn("SKU {} is configured as sharded and as hot or merged, not splitting it", skuCode);
+                continue;
+            }
+            Integer bucketCount = transactionTemplate.execute(status ->
+                    inventoryBucketRepository.splitIntoBuckets(skuCode, buckets));
+            if (bucketCount == null || bucketCount == 0) {
+                log.warn("Sharded SKU {} has no inventory row and stays on the single-row path", skuCode);
+            }
+        }
+
+        refresh();
+        if (!bucketCounts.isEmpty()) {
+            log.info("Serving {} SKU(s) from sharded stock buckets", bucketCounts.size());
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("sharded-stock-refresher")
+                .daemon()
+                .unstarted(runnable));
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    public boolean isSharded(String skuCode) {
+        return bucketCounts.containsKey(skuCode);
+    }
+
+    /**
+     * Deducts every SKU and returns the ones that were short. A non-empty result leaves
+     * partial deductions behind, so the caller must roll back its transaction.
+     */
+    public List<String> deduct(Map<String, Integer> quantities) {
+        List<String> shortSkuCodes = new ArrayList<>();
+        quantities.forEach((skuCode, quantity) -> {
+            if (!deduct(skuCode, quantity)) {
+                shortSkuCodes.add(skuCode);
+            }
+        });
+        return shortSkuCodes;
+    }
+
+    public void credit(Map<String, Integer> quantities) {
+        quantities.forEach((skuCode, quantity) -> inventoryBucketRepository.creditBucket(
+                skuCode, randomBucket(skuCode), quantity));
+    }
+
+    public Map<String, Integer> totals(Collection<String> skuCodes) {
+        return inventoryBucketRepository.totals(skuCodes);
+    }
+
+    private boolean deduct(String skuCode, int quantity) {
+        // Try one random bucket, so concurrent deductions usually lock different rows
+        if (inventoryBucketRepository.deductFromBucketIfAvailable(skuCode, randomBucket(skuCode), quantity)) {
+            return true;
+        }
+
+        // Otherwise drain several buckets, and then the inventory row, under a lock on all of them. Walking on
+        // from the random bucket would let two deductions lock rows in opposite orders; locks taken here always
+        // go row first, then bucket order. A missed conditional update holds no row lock on PostgreSQL or under
+        // READ COMMITTED on MySQL.
+        int rowQuantity = inventoryBucketRepository.lockInventory(skuCode);
+        List<Integer> bucketQuantities = inventoryBucketRepository.lockBuckets(skuCode);
+        int total = rowQuantity + bucketQuantities.stream().mapToInt(Integer::intValue).sum();
+        if (total < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        for (int i = 0; i < bucketQuantities.size() && remaining > 0; i++) {
+            int take = Math.min(remaining, bucketQuantities.get(i));
+            if (take > 0) {
+                inventoryBucketRepository.deductFromBucketIfAvailable(skuCode, i, take);
+                remaining -= take;
+            }
+        }
+        if (remaining > 0) {
+            inventoryBucketRepository.deductFromInventoryIfAvailable(skuCode, remaining);
+        }
+        return true;
+    }
+
+    private int randomBucket(String skuCode) {
+        // A refresh may have dropped the SKU since the caller checked; bucket 0 then misses and the row is used
+        return ThreadLocalRandom.current().nextInt(bucketCounts.getOrDefault(skuCode, 1));
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Could not refresh the list of sharded SKUs: {}", e.getMessage(), e);
+        }
+    }
+
+    private void refresh() {
+        bucketCounts = Map.copyOf(inventoryBucketRepository.bucketCounts());
+    }
+}
@@ -0,0 +1,310 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.kuchtoker.inventory_service.dto.InventoryCheckRequest;
+import com.kuchtoker.inventory_service.dto.StockHoldResponse;
+import com.kuchtoker.inventory_service.model.HoldStatus;
+import com.kuchtoker.inventory_service.model.StockHold;
+import com.kuchtoker.inventory_service.model.StockHoldItem;
+import com.kuchtoker.inventory_service.repository.StockHoldRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockHoldService {
+
+    private final InventoryService inventoryService;
+    private final StockHoldRepository stockHoldRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.holds.default-ttl-seconds:300}")
+    private long defaultTtlSeconds;
+
+    @Value("${inventory.holds.max-ttl-seconds:1800}")
+    private long maxTtlSeconds;
+
+    @Value("${inventory.holds.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${inventory.holds.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${inventory.holds.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    private HoldExpiryWheel expiryWheel;
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    void start() {
+        expiryWheel = new HoldExpiryWheel(tickMillis, wheelSize, System.currentTimeMillis());
+
+        // Holds that were open when the service stopped still need to expire
+        List<StockHoldRepository.HoldExpiry> openHolds = stockHoldRepository.findExpiriesByStatus(HoldStatus.HELD);
+        openHolds.forEach(hold -> expiryWheel.schedule(hold.getHoldId(), hold.getExpiresAt()));
+        log.info("Scheduled expiry for {} open stock hold(s)", openHolds.size());
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("stock-hold-sweeper")
+                .daemon()
+                .unstarted(runnable));
+        sweeper.scheduleAtFixedRate(this::sweep, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        sweeper.shutdownNow();
+    }
+
+    @Transactional
+    public StockHoldResponse reserve(List<InventoryCheckRequest> requests, Long ttlSeconds) {
+        log.info("Inside StockHoldService::reserve");
+
+        long ttl = checkTtl(ttlSeconds);
+        inventoryService.checkAndDeductStock(requests);
+        return held(createHold(requests, ttl, Instant.now()));
+    }
+
+    /**
+     * Reserves stock for several orders at once and returns one response per order, in order.
+     * Orders on plain inventory rows are allocated together under one lock per SKU; orders that
+     * touch hot or sharded SKUs fall back to a reservation of their own.
+     */
+    public List<StockHoldResponse> reserveBatch(List<List<InventoryCheckRequest>> orders, Long ttlSeconds) {
+        log.info("Inside StockHoldService::reserveBatch with {} order(s)", orders.size());
+
+        long ttl = checkTtl(ttlSeconds);
+        StockHoldResponse[] responses = new StockHoldResponse[orders.size()];
+        List<Integer> rowOrderIndexes = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (inventoryService.bypassesInventoryRows(orders.get(i))) {
+                responses[i] = reserveAlone(orders.get(i), ttl);
+            } else {
+                rowOrderIndexes.add(i);
+            }
+        }
+
+        if (!rowOrderIndexes.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<RuntimeException> failures = inventoryService.applyDeductBatch(
+                            rowOrderIndexes.stream().map(orders::get).toList());
+                    Instant now = Instant.now();
+                    for (int k = 0; k < rowOrderIndexes.size(); k++) {
+                        int i = rowOrderIndexes.get(k);
+                        responses[i] = failures.get(k) == null
+                                ? held(createHold(orders.get(i), ttl, now))
+                                : failed(failures.get(k).getMessage());
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Batch reservation of {} order(s) failed: {}", rowOrderIndexes.size(), e.getMessage());
+                rowOrderIndexes.forEach(i -> responses[i] = failed(e.getMessage()));
+            }
+        }
+        return Arrays.asList(responses);
+    }
+
+    @Transactional
+    public void confirm(String holdId) {
+        log.info("Inside StockHoldService::confirm for hold {}", holdId);
+
+        int updated = stockHoldRepository.transitionIfActive(holdId, HoldStatus.HELD, HoldStatus.CONFIRMED, Instant.now());
+        // Confirming twice is a no-op, so a caller that lost the first answer can safely retry
+        if (updated == 0 && stockHoldRepository.findHoldIdsByStatus(List.of(holdId), HoldStatus.CONFIRMED).isEmpty()) {
+            throw new IllegalStateException("Stock hold is not active: " + holdId);
+        }
+    }
+
+    @Transactional
+    public void release(String holdId) {
+        log.info("Inside StockHoldService::release for hold {}", holdId);
+
+        List<StockHold> holds = stockHoldRepository.lockByHoldIdInAndStatus(List.of(holdId), HoldStatus.HELD);
+        if (holds.isEmpty()) {
+            throw new IllegalStateException("Stock hold is not active: " + holdId);
+        }
+        returnHeldStock(holds, HoldStatus.RELEASED);
+    }
+
+    /**
+     * Confirms the holds of committed orders and returns the ones that could not be. A hold that
+     * expired before its order confirmed it takes its stock again if there is still enough; only
+     * holds whose stock has been sold since are reported. Holds that are already confirmed count as
+     * confirmed, so a retried batch reports no false failures.
+     */
+    public List<String> confirmBatch(List<String> holdIds) {
+        log.info("Inside StockHoldService::confirmBatch for {} hold(s)", holdIds.size());
+
+        Set<String> confirmed = new HashSet<>();
+        Set<String> expiredHoldIds = new HashSet<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            confirmed.addAll(stockHoldRepository.findHoldIdsByStatus(holdIds, HoldStatus.CONFIRMED));
+            // The order is committed, so a hold the sweeper has not reached yet still counts as active
+            for (StockHold hold : stockHoldRepository.lockByHoldIdInAndStatus(holdIds, HoldStatus.HELD)) {
+                hold.setStatus(HoldStatus.CONFIRMED);
+                confirmed.add(hold.getHoldId());
+            }
+            expiredHoldIds.addAll(stockHoldRepository.findHoldIdsByStatus(holdIds, HoldStatus.EXPIRED));
+        });
+        // One transaction each, so a hold whose stock is gone does not roll back the others; taken in the
+        // caller's order, so the oldest orders get the remaining stock first
+        for (String holdId : holdIds) {
+            if (expiredHoldIds.contains(holdId) && reclaim(holdId)) {
+                confirmed.add(holdId);
+            }
+        }
+        return holdIds.stream().filter(holdId -> !confirmed.contains(holdId)).toList();
+    }
+
+    /**
+     * Releases every hold that is still held and returns the ones that were not.
+     */
+    @Transactional
+    public List<String> releaseBatch(List<String> holdIds) {
+        log.info("Inside StockHoldService::releaseBatch for {} hold(s)", holdIds.size());
+
+        List<StockHold> holds = stockHoldRepository.lockByHoldIdInAndStatus(holdIds, HoldStatus.HELD);
+        returnHeldStock(holds, HoldStatus.RELEASED);
+        Set<String> released = new HashSet<>();
+        holds.forEach(hold -> released.add(hold.getHoldId()));
+        return holdIds.stream().filter(holdId -> !released.contains(holdId)).toList();
+    }
+
+    private boolean reclaim(String holdId) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                List<StockHold> holds = stockHoldRepository.lockByHoldIdInAndStatus(List.of(holdId), HoldStatus.EXPIRED);
+                if (holds.isEmpty()) {
+                    // Reclaimed by a concurrent retry of the same batch in the meantime
+                    return !stockHoldRepository.findHoldIdsByStatus(List.of(holdId), HoldStatus.CONFIRMED).isEmpty();
+                }
+                StockHold hold = holds.get(0);
+                inventoryService.checkAndDeductStock(hold.getItems().stream()
+                        .map(item -> new InventoryCheckRequest(item.getSkuCode(), item.getQuantity()))
+                        .toList());
+                hold.setStatus(HoldStatus.CONFIRMED);
+                log.info("Expired stock hold {} took its stock again for a committed order", holdId);
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Expired stock hold {} could not take its stock again: {}", holdId, e.getMessage());
+            return false;
+        }
+    }
+
+    private long checkTtl(Long ttlSeconds) {
+        long ttl = ttlSeconds == null ? defaultTtlSeconds : ttlSeconds;
+        if (ttl <= 0 || ttl > maxTtlSeconds) {
+            throw new IllegalArgumentException("Hold TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+        return ttl;
+    }
+
+    private StockHold createHold(List<InventoryCheckRequest> requests, long ttl, Instant now) {
+        StockHold hold = new StockHold(
+                UUID.randomUUID().toString(),
+                HoldStatus.HELD,
+                now,
+                now.plus(Duration.ofSeconds(ttl)),
+                requests.stream()
+                        .map(request -> new StockHoldItem(request.getSkuCode(), request.getQuantity()))
+                        .toList());
+        stockHoldRepository.save(hold);
+
+        // A hold that never commits has no HELD row, so its timeout simply finds nothing to expire
+        expiryWheel.schedule(hold.getHoldId(), hold.getExpiresAt());
+        return hold;
+    }
+
+    private StockHoldResponse reserveAlone(List<InventoryCheckRequest> requests, long ttl) {
+        try {
+            return transactionTemplate.execute(status -> {
+                inventoryService.checkAndDeductStock(requests);
+                return held(createHold(requests, ttl, Instant.now()));
+            });
+        } catch (RuntimeException e) {
+            return failed(e.getMessage());
+        }
+    }
+
+    private static StockHoldResponse held(StockHold hold) {
+        return StockHoldResponse.builder()
+                .success(true)
+                .message("Stock held")
+                .holdId(hold.getHoldId())
+                .expiresAt(hold.getExpiresAt())
+                .build();
+    }
+
+    private static StockHoldResponse failed(String message) {
+        return StockHoldResponse.builder()
+                .success(false)
+                .message(message)
+                .build();
+    }
+
+    private void sweep() {
+        List<String> dueHoldIds = expiryWheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < dueHoldIds.size(); from += sweepBatchSize) {
+            List<String> chunk = dueHoldIds.subList(from, Math.min(from + sweepBatchSize, dueHoldIds.size()));
+            try {
+                Integer expired = transactionTemplate.execute(status -> expire(chunk));
+                if (expired != null && expired > 0) {
+                    log.info("Expired {} stock hold(s)", expired);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to expire {} stock hold(s), retrying next tick: {}", chunk.size(), e.getMessage(), e);
+                Instant retryAt = Instant.now().plusMillis(tickMillis);
+                chunk.forEach(holdId -> expiryWheel.schedule(holdId, retryAt));
+            }
+        }
+    }
+
+    private int expire(List<String> holdIds) {
+        Instant now = Instant.now();
+        List<StockHold> holds = new ArrayList<>();
+        for (StockHold hold : stockHoldRepository.lockByHoldIdInAndStatus(holdIds, HoldStatus.HELD)) {
+            if (hold.getExpiresAt().isAfter(now)) {
+                expiryWheel.schedule(hold.getHoldId(), hold.getExpiresAt());
+            } else {
+                holds.add(hold);
+            }
+        }
+        returnHeldStock(holds, HoldStatus.EXPIRED);
+        return holds.size();
+    }
+
+    private void returnHeldStock(List<StockHold> holds, HoldStatus finalStatus) {
+        if (holds.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (StockHold hold : holds) {
+            hold.setStatus(finalStatus);
+            hold.getItems().forEach(item -> quantities.merge(item.getSkuCode(), item.getQuantity(), Integer::sum));
+        }
+        inventoryService.returnStock(quantities);
+    }
+}
@@ -0,0 +1,144 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.kuchtoker.inventory_service.dto.StockChangeMessage;
+import com.kuchtoker.inventory_service.model.StockOutboxEvent;
+import com.kuchtoker.inventory_service.repository.InventoryBucketRepository;
+import com.kuchtoker.inventory_service.repository.StockOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains {@code t_inventory_outbox} to the stock topic in batches. Rows are deleted in the same
+ * transaction that locked them, and only after Kafka acknowledged the whole batch, so a failure
+ * leads to a resend rather than a lost change. Batches are published one at a time across all
+ * instances, in id order, so per SKU the topic sees changes in the order they committed.
+ * <p>
+ * Rows queued without a quantity get the SKU's current total, read after the batch was locked.
+ * Every later change queues another row that is read later still, so the last record of a SKU
+ * always carries a total read after its last change.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockOutboxRelay {
+
+    private final StockOutboxRepository stockOutboxRepository;
+    private final InventoryBucketRepository inventoryBucketRepository;
+    private final KafkaTemplate<String, StockChangeMessage> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${inventory.outbox.topic:inventoryStockTopic}")
+    private String topic;
+
+    @Value("${inventory.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${inventory.outbox.relay.interval-ms:100}")
+    private long intervalMs;
+
+    @Value("${inventory.outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private ScheduledExecutorService relay;
+    private DistributionSummary batchSizeSummary;
+    private Counter published;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        batchSizeSummary = DistributionSummary.builder("inventory.outbox.relay.batch.size")
+                .description("Stock changes published per relay batch")
+                .register(meterRegistry);
+        published = Counter.builder("inventory.outbox.relay.published")
+                .description("Stock changes published to Kafka")
+                .register(meterRegistry);
+        TimeGauge.builder("inventory.outbox.relay.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::doubleValue)
+                .description("Age of the oldest stock change in the last relay batch")
+                .register(meterRegistry);
+
+        relay = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("stock-outbox-relay")
+                .daemon()
+                .unstarted(runnable));
+        relay.scheduleWithFixedDelay(this::drain, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (relay != null) {
+            relay.shutdown();
+        }
+    }
+
+    private void drain() {
+        try {
+            // Keep going while batches come back full, so a backlog drains without waiting for the next tick
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (Exception e) {
+            log.error("Stock outbox relay failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    private int relayBatch() {
+        List<StockOutboxEvent> events = stockOutboxRepository.lockBatch(batchSize);
+        if (events.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Duration.between(events.get(0).getCreatedAt(), Instant.now()).toMillis());
+
+        Set<String> unreadSkuCodes = events.stream()
+                .filter(event -> event.getQuantity() == null)
+                .map(StockOutboxEvent::getSkuCode)
+                .collect(Collectors.toSet());
+        Map<String, Integer> totals = inventoryBucketRepository.totals(unreadSkuCodes);
+
+        CompletableFuture<?>[] sends = events.stream()
+                .map(event -> kafkaTemplate.send(topic, event.getSkuCode(), new StockChangeMessage(
+                        event.getId(),
+                        event.getSkuCode(),
+                        event.getDelta(),
+                        event.getQuantity() != null ? event.getQuantity() : totals.getOrDefault(event.getSkuCode(), 0),
+                        event.getCreatedAt())))
+                .toArray(CompletableFuture[]::new);
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(sends).orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS).join();
+
+        stockOutboxRepository.deleteAll(events.stream().map(StockOutboxEvent::getId).toList());
+        batchSizeSummary.record(events.size());
+        published.increment(events.size());
+        return events.size();
+    }
+}
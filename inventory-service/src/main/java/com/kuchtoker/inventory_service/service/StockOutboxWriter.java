@@ -0,0 +1,42 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.kuchtoker.inventory_service.event.StockChangedEvent;
+import com.kuchtoker.inventory_service.repository.InventoryBatchRepository;
+import com.kuchtoker.inventory_service.repository.StockOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Component
+@RequiredArgsConstructor
+public class StockOutboxWriter {
+
+    private final StockOutboxRepository stockOutboxRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final ShardedStockStore shardedStockStore;
+    private final HotStockLedger hotStockLedger;
+
+    // Runs inside the transaction that made the change, so the outbox row commits or rolls back with it
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onStockChanged(StockChangedEvent event) {
+        // Hot SKUs reach t_inventory through the ledger's flusher, which queues their rows itself
+        Map<String, Integer> deltas = new TreeMap<>(event.deltas());
+        deltas.keySet().removeIf(hotStockLedger::isHot);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // Consumers of the compacted topic only keep the last record per SKU, so each row carries the quantity
+        // the change left behind. Plain rows are still locked by this transaction, so their value is exact.
+        // Sharded SKUs are spread over rows other transactions keep changing; the relay reads those instead.
+        List<String> plainSkuCodes = deltas.keySet().stream()
+                .filter(skuCode -> !shardedStockStore.isSharded(skuCode))
+                .toList();
+        stockOutboxRepository.insertAll(deltas, inventoryBatchRepository.findQuantities(plainSkuCodes), Instant.now());
+    }
+}
@@ -0,0 +1,173 @@
+package com.kuchtoker.inventory_service;
+
+import com.kuchtoker.inventory_service.dto.InventoryCheckRequest;
+import com.kuchtoker.inventory_service.dto.StockHoldResponse;
+import com.kuchtoker.inventory_service.model.HoldStatus;
+import com.kuchtoker.inventory_service.repository.InventoryRepository;
+import com.kuchtoker.inventory_service.repository.StockHoldRepository;
+import com.kuchtoker.inventory_service.service.InventoryService;
+import com.kuchtoker.inventory_service.service.StockHoldService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"eureka.client.enabled=false",
+		"management.tracing.enabled=false",
+		"spring.kafka.admin.auto-create=false",
+		"inventory.outbox.relay.enabled=false",
+		"inventory.holds.tick-ms=100"
+})
+@Testcontainers
+class StockHoldIntegrationTests {
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void setProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+		registry.add("spring.datasource.driver-class-name", postgres::getDriverClassName);
+	}
+
+	@Autowired
+	private StockHoldService stockHoldService;
+
+	@Autowired
+	private InventoryService inventoryService;
+
+	@Autowired
+	private InventoryRepository inventoryRepository;
+
+	@Autowired
+	private StockHoldRepository stockHoldRepository;
+
+	@Test
+	void confirmedHoldKeepsItsStock() {
+		String skuCode = stock(10);
+		StockHoldResponse hold = stockHoldService.reserve(List.of(new InventoryCheckRequest(skuCode, 3)), 60L);
+
+		assertTrue(hold.isSuccess());
+		assertEquals(7, quantity(skuCode));
+
+		stockHoldService.confirm(hold.getHoldId());
+		// A retried confirm must not fail once the first one went through
+		assertDoesNotThrow(() -> stockHoldService.confirm(hold.getHoldId()));
+		assertThrows(IllegalStateException.class, () -> stockHoldService.release(hold.getHoldId()));
+
+		assertEquals(HoldStatus.CONFIRMED, status(hold.getHoldId()));
+		assertEquals(7, quantity(skuCode));
+	}
+
+	@Test
+	void releasedHoldReturnsItsStockOnce() {
+		String skuCode = stock(10);
+		StockHoldResponse hold = stockHoldService.reserve(List.of(new InventoryCheckRequest(skuCode, 4)), 60L);
+
+		stockHoldService.release(hold.getHoldId());
+
+		assertEquals(HoldStatus.RELEASED, status(hold.getHoldId()));
+		assertEquals(10, quantity(skuCode));
+		assertThrows(IllegalStateException.class, () -> stockHoldService.release(hold.getHoldId()));
+		assertThrows(IllegalStateException.class, () -> stockHoldService.confirm(hold.getHoldId()));
+		assertEquals(10, quantity(skuCode));
+	}
+
+	@Test
+	void confirmBatchReportsOnlyHoldsThatAreNoLongerActive() {
+		String skuCode = stock(10);
+		String kept = stockHoldService.reserve(List.of(new InventoryCheckRequest(skuCode, 1)), 60L).getHoldId();
+		String released = stockHoldService.reserve(List.of(new InventoryCheckRequest(skuCode, 2)), 60L).getHoldId();
+		stockHoldService.release(released);
+
+		assertEquals(List.of(released), stockHoldService.confirmBatch(List.of(kept, released)));
+		// Retrying the same batch reports no false failure for the hold confirmed the first time
+		assertEquals(List.of(released), stockHoldService.confirmBatch(List.of(kept, released)));
+		assertEquals(9, quantity(skuCode));
+	}
+
+	@Test
+	void releaseBatchLeavesConfirmedHoldsAlone() {
+		String skuCode = stock(10);
+		String confirmed = stockHoldService.reserve(List.of(new InventoryCheckRequest(skuCode, 3)), 60L).getHoldId();
+		String held = stockHoldService.reserve(List.of(new InventoryCheckRequest(skuCode, 2)), 60L).getHoldId();
+		stockHoldService.confirm(confirmed);
+
+		assertEquals(List.of(confirmed), stockHoldService.releaseBatch(List.of(confirmed, held)));
+		assertEquals(7, quantity(skuCode));
+	}
+
+	@Test
+	void reserveBatchFailsOnlyTheOrdersThatAreShort() {
+		String skuCode = stock(5);
+		List<StockHoldResponse> holds = stockHoldService.reserveBatch(List.of(
+				List.of(new InventoryCheckRequest(skuCode, 3)),
+				List.of(new InventoryCheckRequest(skuCode, 3)),
+				List.of(new InventoryCheckRequest(skuCode, 2))), 60L);
+
+		assertTrue(holds.get(0).isSuccess());
+		assertFalse(holds.get(1).isSuccess());
+		assertTrue(holds.get(2).isSuccess());
+		assertEquals(0, quantity(skuCode));
+	}
+
+	@Test
+	void expiredHoldGoesBackOnSaleAndIsReclaimedWhileStockLasts() throws InterruptedException {
+		String skuCode = stock(10);
+		String reclaimed = stockHoldService.reserve(List.of(new InventoryCheckRequest(skuCode, 6)), 1L).getHoldId();
+		String sold = stockHoldService.reserve(List.of(new InventoryCheckRequest(skuCode, 4)), 1L).getHoldId();
+		assertEquals(0, quantity(skuCode));
+
+		awaitExpiry(reclaimed);
+		awaitExpiry(sold);
+		assertEquals(10, quantity(skuCode));
+		// Part of the returned stock is sold before the orders of the expired holds confirm them
+		stockHoldService.confirm(stockHoldService.reserve(List.of(new InventoryCheckRequest(skuCode, 3)), 60L).getHoldId());
+
+		assertEquals(List.of(sold), stockHoldService.confirmBatch(List.of(reclaimed, sold)));
+		assertEquals(HoldStatus.CONFIRMED, status(reclaimed));
+		assertEquals(HoldStatus.EXPIRED, status(sold));
+		assertEquals(1, quantity(skuCode));
+		// A retry neither takes the stock twice nor reports the reclaimed hold
+		assertEquals(List.of(sold), stockHoldService.confirmBatch(List.of(reclaimed, sold)));
+		assertEquals(1, quantity(skuCode));
+	}
+
+	private void awaitExpiry(String holdId) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (status(holdId) == HoldStatus.HELD && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+		}
+		assertEquals(HoldStatus.EXPIRED, status(holdId));
+	}
+
+	private String stock(int quantity) {
+		String skuCode = "sku-" + UUID.randomUUID();
+		inventoryService.checkAndAddStock(List.of(new InventoryCheckRequest(skuCode, quantity)));
+		return skuCode;
+	}
+
+	private int quantity(String skuCode) {
+		return inventoryRepository.findBySkuCode(skuCode).orElseThrow().getQuantity();
+	}
+
+	private HoldStatus status(String holdId) {
+		return stockHoldRepository.findById(holdId).orElseThrow().getStatus();
+	}
+}
@@ -0,0 +1,74 @@
+package com.kuchtoker.inventory_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HoldExpiryWheelTest {
+
+	@Test
+	void expiresAHoldOnTheTickOfItsDeadline() {
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 8, 0);
+		wheel.schedule("hold-1", Instant.ofEpochMilli(250));
+
+		assertTrue(wheel.advance(299).isEmpty());
+		assertEquals(List.of("hold-1"), wheel.advance(300));
+		assertTrue(wheel.advance(400).isEmpty());
+	}
+
+	@Test
+	void keepsHoldsDueInALaterRevolution() {
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 4, 0);
+		// Tick 10 shares a bucket with tick 2 on a wheel of four buckets
+		wheel.schedule("far", Instant.ofEpochMilli(1_000));
+
+		assertTrue(wheel.advance(200).isEmpty());
+		assertTrue(wheel.advance(900).isEmpty());
+		assertEquals(List.of("far"), wheel.advance(1_000));
+	}
+
+	@Test
+	void expiresAHoldScheduledBehindTheSweeperOnTheNextTick() {
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 8, 0);
+		wheel.advance(500);
+
+		wheel.schedule("late", Instant.ofEpochMilli(100));
+
+		assertEquals(List.of("late"), wheel.advance(600));
+	}
+
+	@Test
+	void returnsEveryDueHoldOnceAfterALongPause() {
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 8, 0);
+		Set<String> scheduled = new HashSet<>();
+		for (int i = 0; i < 50; i++) {
+			wheel.schedule("hold-" + i, Instant.ofEpochMilli(100L * i));
+			scheduled.add("hold-" + i);
+		}
+
+		List<String> due = new ArrayList<>(wheel.advance(60_000));
+
+		assertEquals(scheduled.size(), due.size());
+		assertEquals(scheduled, new HashSet<>(due));
+		assertTrue(wheel.advance(120_000).isEmpty());
+	}
+
+	@Test
+	void roundsTheWheelSizeUpToAPowerOfTwo() {
+		// Five buckets become eight, so ticks 1 and 9 share a bucket but expire on their own ticks
+		HoldExpiryWheel wheel = new HoldExpiryWheel(100, 5, 0);
+		wheel.schedule("soon", Instant.ofEpochMilli(100));
+		wheel.schedule("later", Instant.ofEpochMilli(900));
+
+		assertEquals(List.of("soon"), wheel.advance(100));
+		assertTrue(wheel.advance(800).isEmpty());
+		assertEquals(List.of("later"), wheel.advance(900));
+	}
+}
@@ -0,0 +1,164 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.kuchtoker.inventory_service.model.Inventory;
+import com.kuchtoker.inventory_service.model.LedgerCheckpoint;
+import com.kuchtoker.inventory_service.repository.InventoryBatchRepository;
+import com.kuchtoker.inventory_service.repository.InventoryRepository;
+import com.kuchtoker.inventory_service.repository.LedgerCheckpointRepository;
+import com.kuchtoker.inventory_service.repository.LedgerCommitRepository;
+import com.kuchtoker.inventory_service.repository.StockOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotStockLedgerTest {
+
+	private static final String SKU = "sku-hot";
+
+	@TempDir
+	Path journalDir;
+
+	private InventoryBatchRepository inventoryBatchRepository;
+	private LedgerCommitRepository ledgerCommitRepository;
+	// Stands in for t_inventory_ledger_commit: only markers of committed transactions end up here
+	private final Set<Long> markers = new TreeSet<>();
+	private final List<Long> insertedMarkers = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		inventoryBatchRepository = mock(InventoryBatchRepository.class);
+		when(inventoryBatchRepository.lockQuantities(any())).thenReturn(Map.of(SKU, 10));
+		ledgerCommitRepository = mock(LedgerCommitRepository.class);
+		when(ledgerCommitRepository.insert(anyLong())).thenAnswer(invocation -> {
+			insertedMarkers.add(invocation.getArgument(0));
+			return 1;
+		});
+		when(ledgerCommitRepository.findAllJournalSequences()).thenAnswer(invocation -> new ArrayList<>(markers));
+		when(ledgerCommitRepository.deleteByJournalSequenceIn(any())).thenAnswer(invocation -> {
+			markers.removeAll(invocation.<Collection<Long>>getArgument(0));
+			return 0;
+		});
+	}
+
+	@Test
+	void recoveryReplaysOnlyDeductionsWhoseTransactionCommitted() throws Exception {
+		HotStockLedger ledger = startLedger();
+
+		commit(deduct(ledger, 3));
+		rollBack(deduct(ledger, 2));
+		// Journaled and forced, but the process dies before the transaction commits
+		deduct(ledger, 4);
+
+		assertEquals(3, ledger.available(SKU));
+		crash(ledger);
+		startLedger();
+
+		verify(inventoryBatchRepository).applyDeltas(Map.of(SKU, -3));
+		verify(ledgerCommitRepository).deleteAllInBatch();
+	}
+
+	@Test
+	void rolledBackDeductionIsHandedBackWithoutTouchingTheJournal() throws Exception {
+		HotStockLedger ledger = startLedger();
+
+		rollBack(deduct(ledger, 6));
+
+		assertEquals(10, ledger.available(SKU));
+		crash(ledger);
+		startLedger();
+
+		verify(inventoryBatchRepository, never()).applyDeltas(any());
+	}
+
+	@Test
+	void flushedDeductionIsNotReplayedWhileAnOlderOneIsStillInFlight() throws Exception {
+		HotStockLedger ledger = startLedger();
+
+		List<TransactionSynchronization> older = deduct(ledger, 2);
+		long olderSequence = insertedMarkers.get(0);
+		commit(deduct(ledger, 3));
+		ReflectionTestUtils.invokeMethod(ledger, "flush");
+		verify(inventoryBatchRepository).applyDeltas(Map.of(SKU, -3));
+
+		// Commits after the flush, so only its marker is left when the process dies
+		markers.add(olderSequence);
+		older.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+		crash(ledger);
+		startLedger();
+
+		verify(inventoryBatchRepository).applyDeltas(Map.of(SKU, -2));
+	}
+
+	private HotStockLedger startLedger() throws Exception {
+		InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+		when(inventoryRepository.findAllBySkuCodeIn(any())).thenReturn(List.of(new Inventory(1L, SKU, 10)));
+		LedgerCheckpointRepository ledgerCheckpointRepository = mock(LedgerCheckpointRepository.class);
+		when(ledgerCheckpointRepository.existsById(anyString())).thenReturn(true);
+		when(ledgerCheckpointRepository.findById(anyString()))
+				.thenReturn(Optional.of(new LedgerCheckpoint("hot-stock-ledger", 0L, null, null, null)));
+		when(ledgerCheckpointRepository.acquireLease(anyString(), anyString(), any(), any())).thenReturn(1);
+		when(ledgerCheckpointRepository.publishHotSkuCodes(anyString(), anyString(), anyString())).thenReturn(1);
+
+		HotStockLedger ledger = new HotStockLedger(inventoryRepository, inventoryBatchRepository,
+				ledgerCheckpointRepository, ledgerCommitRepository, mock(StockOutboxRepository.class),
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+		ReflectionTestUtils.setField(ledger, "hotSkuCodes", List.of(SKU));
+		ReflectionTestUtils.setField(ledger, "journalDir", journalDir.toString());
+		// Flushes only happen when a test asks for one
+		ReflectionTestUtils.setField(ledger, "flushIntervalMs", 3_600_000L);
+		ReflectionTestUtils.setField(ledger, "leaseMs", 30_000L);
+		ReflectionTestUtils.setField(ledger, "hotSetRefreshMs", 10L);
+		ledger.start();
+		return ledger;
+	}
+
+	private static List<TransactionSynchronization> deduct(HotStockLedger ledger, int quantity) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertTrue(ledger.deduct(Map.of(SKU, quantity)).isEmpty());
+			return TransactionSynchronizationManager.getSynchronizations();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private void commit(List<TransactionSynchronization> synchronizations) {
+		markers.add(insertedMarkers.get(insertedMarkers.size() - 1));
+		synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+	}
+
+	private static void rollBack(List<TransactionSynchronization> synchronizations) {
+		synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+	}
+
+	private static void crash(HotStockLedger ledger) {
+		// Background threads die with the process; the journal stays as it is on disk
+		((ExecutorService) ReflectionTestUtils.getField(ledger, "flusher")).shutdownNow();
+		((ExecutorService) ReflectionTestUtils.getField(ledger, "hotSetRefresher")).shutdownNow();
+	}
+}
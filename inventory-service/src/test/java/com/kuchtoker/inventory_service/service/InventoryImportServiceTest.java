@@ -0,0 +1,37 @@
+package com.kuchtoker.inventory_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kuchtoker.inventory_service.dto.InventoryImportResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class InventoryImportServiceTest {
+
+	@Test
+	void aFailedChunkIsReportedAndLaterChunksStillApply() throws Exception {
+		InventoryService inventoryService = mock(InventoryService.class);
+		doThrow(new TransactionSystemException("Could not commit"))
+				.when(inventoryService).importChunk(Map.of("sku-2", 2));
+		InventoryImportService importService = new InventoryImportService(inventoryService, new ObjectMapper());
+		ReflectionTestUtils.setField(importService, "chunkSize", 1);
+
+		String csv = "skuCode,quantity\nsku-1,1\nsku-2,2\nsku-3,3\n";
+		InventoryImportResponse response = importService.importStock(
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), InventoryImportService.Format.CSV);
+
+		assertEquals(2, response.getRowsImported());
+		assertEquals(1, response.getRowsRejected());
+		assertEquals(3, response.getChunks());
+		assertTrue(response.getErrors().get(0).startsWith("Chunk 2 failed"));
+	}
+}
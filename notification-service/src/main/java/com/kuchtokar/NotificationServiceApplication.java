@@ -12,7 +12,7 @@ public class NotificationServiceApplication {
 		SpringApplication.run(NotificationServiceApplication.class,args);
 	}
 
-	@KafkaListener(topics = "notificationTopic")
+	@KafkaListener(topics = "${notification.order-topic:orderTopic}")
 	public void handleNotification(OrderPlacedEvent orderPlacedEvent){
 		//Send out am email notification
 		log.info("Received notification for Order - {} ",orderPlacedEvent.getOrderNumber());
@@ -4,9 +4,24 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class OrderPlacedEvent {
 	private String orderNumber;
+	private Instant placedAt;
+	private List<LineItem> lineItems;
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class LineItem {
+		private String skuCode;
+		private int quantity;
+		private BigDecimal price;
+	}
 }
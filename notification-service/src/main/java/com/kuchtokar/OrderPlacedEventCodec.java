@@ -0,0 +1,119 @@
+package com.kuchtokar;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of {@link OrderPlacedEvent}. order-service owns the original of this class;
+ * both must follow the same evolution rules:
+ * <ul>
+ *     <li>Fields are never removed, reordered or retyped; new fields are only appended to the
+ *     end of the event or the end of a line item.</li>
+ *     <li>Every append bumps {@link #VERSION}. Readers only read a field when the record's
+ *     version is at least the one that introduced it, and ignore trailing bytes from versions
+ *     newer than their own.</li>
+ *     <li>Line items are length-prefixed so older readers can skip fields appended to them.</li>
+ *     <li>A change that cannot follow these rules goes to a new topic.</li>
+ * </ul>
+ * Layout of version 1: version byte, order number, placed-at epoch millis, line item count,
+ * then per line item its length, SKU code, quantity and price (presence flag, scale, unscaled bytes).
+ * Values that do not fit their length prefix are rejected on encode rather than truncated.
+ */
+public final class OrderPlacedEventCodec {
+
+	public static final int VERSION = 1;
+
+	private static final int MAX_LINE_ITEM_BYTES = 0xFFFF;
+	private static final int MAX_UNSCALED_PRICE_BYTES = 0xFF;
+
+	private OrderPlacedEventCodec() {
+	}
+
+	public static byte[] encode(OrderPlacedEvent event) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 32 * event.getLineItems().size());
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			out.writeUTF(event.getOrderNumber());
+			out.writeLong(event.getPlacedAt().toEpochMilli());
+			out.writeInt(event.getLineItems().size());
+			for (OrderPlacedEvent.LineItem item : event.getLineItems()) {
+				byte[] encodedItem = encodeLineItem(item);
+				if (encodedItem.length > MAX_LINE_ITEM_BYTES) {
+					throw new IllegalArgumentException("Line item " + item.getSkuCode() + " encodes to "
+							+ encodedItem.length + " bytes, more than the " + MAX_LINE_ITEM_BYTES + " its length prefix holds");
+				}
+				out.writeShort(encodedItem.length);
+				out.write(encodedItem);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not encode OrderPlacedEvent", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	public static OrderPlacedEvent decode(byte[] data) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			int version = in.readUnsignedByte();
+			if (version < 1) {
+				throw new IllegalArgumentException("Unknown OrderPlacedEvent version " + version);
+			}
+			String orderNumber = in.readUTF();
+			Instant placedAt = Instant.ofEpochMilli(in.readLong());
+			int count = in.readInt();
+			List<OrderPlacedEvent.LineItem> lineItems = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				byte[] encodedItem = new byte[in.readUnsignedShort()];
+				in.readFully(encodedItem);
+				lineItems.add(decodeLineItem(encodedItem));
+			}
+			return new OrderPlacedEvent(orderNumber, placedAt, lineItems);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not decode OrderPlacedEvent", e);
+		}
+	}
+
+	private static byte[] encodeLineItem(OrderPlacedEvent.LineItem item) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeUTF(item.getSkuCode());
+			out.writeInt(item.getQuantity());
+			out.writeBoolean(item.getPrice() != null);
+			if (item.getPrice() != null) {
+				byte[] unscaled = item.getPrice().unscaledValue().toByteArray();
+				if (unscaled.length > MAX_UNSCALED_PRICE_BYTES) {
+					throw new IllegalArgumentException("Price of line item " + item.getSkuCode() + " needs "
+							+ unscaled.length + " bytes, more than the " + MAX_UNSCALED_PRICE_BYTES + " its length prefix holds");
+				}
+				out.writeInt(item.getPrice().scale());
+				out.writeByte(unscaled.length);
+				out.write(unscaled);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static OrderPlacedEvent.LineItem decodeLineItem(byte[] encodedItem) throws IOException {
+		// Reads only the fields it knows; anything appended by a newer version stays unread
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encodedItem))) {
+			String skuCode = in.readUTF();
+			int quantity = in.readInt();
+			BigDecimal price = null;
+			if (in.readBoolean()) {
+				int scale = in.readInt();
+				byte[] unscaled = new byte[in.readUnsignedByte()];
+				in.readFully(unscaled);
+				price = new BigDecimal(new BigInteger(unscaled), scale);
+			}
+			return new OrderPlacedEvent.LineItem(skuCode, quantity, price);
+		}
+	}
+}
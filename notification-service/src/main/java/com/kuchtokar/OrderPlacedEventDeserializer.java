@@ -0,0 +1,11 @@
+package com.kuchtokar;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class OrderPlacedEventDeserializer implements Deserializer<OrderPlacedEvent> {
+
+	@Override
+	public OrderPlacedEvent deserialize(String topic, byte[] data) {
+		return data == null ? null : OrderPlacedEventCodec.decode(data);
+	}
+}
@@ -0,0 +1,44 @@
+package com.kuchtokar;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderPlacedEventCodecTest {
+
+	// Written by order-service's OrderPlacedEventCodecTest; this copy of the codec must read and write the same bytes
+	static final String VERSION_1_FIXTURE = "0100054f52442d310000018bcfe5680000000002"
+			+ "001800096970686f6e655f31350000000201000000020301e847"
+			+ "000e0007706978656c5f380000000100";
+
+	@Test
+	void decodesWhatOrderServiceWrites() {
+		assertEquals(fixture(), OrderPlacedEventCodec.decode(HexFormat.of().parseHex(VERSION_1_FIXTURE)));
+	}
+
+	@Test
+	void encodesLikeOrderService() {
+		assertArrayEquals(HexFormat.of().parseHex(VERSION_1_FIXTURE), OrderPlacedEventCodec.encode(fixture()));
+	}
+
+	@Test
+	void rejectsAnUnknownVersion() {
+		byte[] data = HexFormat.of().parseHex(VERSION_1_FIXTURE);
+		data[0] = 0;
+
+		assertThrows(IllegalArgumentException.class, () -> OrderPlacedEventCodec.decode(data));
+	}
+
+	private static OrderPlacedEvent fixture() {
+		return new OrderPlacedEvent("ORD-1", Instant.ofEpochMilli(1_700_000_000_000L), List.of(
+				new OrderPlacedEvent.LineItem("iphone_15", 2, new BigDecimal("1249.99")),
+				new OrderPlacedEvent.LineItem("pixel_8", 1, null)));
+	}
+}
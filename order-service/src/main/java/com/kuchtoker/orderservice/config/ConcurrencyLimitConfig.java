@@ -0,0 +1,26 @@
+package com.kuchtoker.orderservice.config;
+
+import com.kuchtoker.orderservice.service.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    // Limits order intake at the controller; outbound calls are limited per service by ConcurrencyLimitFilter
+    @Bean
+    public AdaptiveConcurrencyLimiter orderIntakeLimiter(
+            @Value("${order.concurrency.intake.initial-limit:50}") int initialLimit,
+            @Value("${order.concurrency.intake.min-limit:5}") int minLimit,
+            @Value("${order.concurrency.intake.max-limit:500}") int maxLimit,
+            @Value("${order.concurrency.intake.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${order.concurrency.intake.latency-threshold-ms:2000}") long latencyThresholdMs,
+            MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter("order-intake", initialLimit, minLimit, maxLimit, backoffRatio,
+                Duration.ofMillis(latencyThresholdMs), meterRegistry);
+    }
+}
@@ -0,0 +1,96 @@
+package com.kuchtoker.orderservice.config;
+
+import com.kuchtoker.orderservice.service.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gives every downstream service its own {@link AdaptiveConcurrencyLimiter}. Registered ahead of
+ * the load balancer, so the host is the service id and all its instances share one limit.
+ * <p>
+ * Only requests marked with {@link #LIMITED} are limited: the calls that admit new work, such as
+ * product lookups and reservations. Confirmations and releases finish work that is already
+ * committed or held, and shedding them would only turn a placed order into a failure.
+ * Transport errors, timeouts, 5xx and 429 responses count as drops; the permit is held until
+ * the response has been read or the call is cancelled.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter implements ExchangeFilterFunction {
+
+    /**
+     * Request attribute that opts a call into shedding, e.g. {@code .attribute(LIMITED, true)}.
+     */
+    public static final String LIMITED = ConcurrencyLimitFilter.class.getName() + ".LIMITED";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${order.concurrency.outbound.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${order.concurrency.outbound.min-limit:2}")
+    private int minLimit;
+
+    @Value("${order.concurrency.outbound.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${order.concurrency.outbound.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${order.concurrency.outbound.latency-threshold-ms:1000}")
+    private long latencyThresholdMs;
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!Boolean.TRUE.equals(request.attribute(LIMITED).orElse(false))) {
+            return next.exchange(request);
+        }
+        AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(request.url().getHost(), host ->
+                new AdaptiveConcurrencyLimiter(host, initialLimit, minLimit, maxLimit, backoffRatio,
+                        Duration.ofMillis(latencyThresholdMs), meterRegistry));
+        return Mono.defer(() -> {
+            limiter.acquire();
+            long startNanos = System.nanoTime();
+            AtomicBoolean released = new AtomicBoolean();
+            AtomicBoolean responded = new AtomicBoolean();
+            return next.exchange(request)
+                    .doOnNext(response -> responded.set(true))
+                    .doOnError(e -> release(limiter, released, startNanos, true))
+                    .doFinally(signal -> {
+                        // Once there is a response, the permit is returned when its body is done instead
+                        if (signal == SignalType.CANCEL && !responded.get()) {
+                            release(limiter, released, startNanos, true);
+                        }
+                    })
+                    .map(response -> {
+                        boolean dropped = response.statusCode().is5xxServerError()
+                                || response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+                        return response.mutate()
+                                .body(body -> body.doFinally(signal -> release(limiter, released, startNanos, dropped)))
+                                .build();
+                    });
+        });
+    }
+
+    private static void release(AdaptiveConcurrencyLimiter limiter, AtomicBoolean released, long startNanos, boolean dropped) {
+        if (released.compareAndSet(false, true)) {
+            limiter.release(startNanos, dropped);
+        }
+    }
+}
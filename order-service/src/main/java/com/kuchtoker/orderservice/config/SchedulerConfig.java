@@ -0,0 +1,21 @@
+package com.kuchtoker.orderservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class SchedulerConfig {
+
+    /**
+     * Runs the blocking JPA step of order placement. Capped at the connection pool
+     * size by default so extra threads would only queue on Hikari anyway.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler orderPersistenceScheduler(@Value("${order.persistence.threads:10}") int threads,
+                                               @Value("${order.persistence.queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "order-persistence");
+    }
+}
@@ -3,14 +3,29 @@ package com.kuchtoker.orderservice.config;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 public class WebClientConfig {
 
+    // Accept header for inter-service calls: CBOR when the other side speaks it, JSON otherwise
+    public static final List<MediaType> BINARY_FIRST = List.of(
+            MediaType.APPLICATION_CBOR, new MediaType(MediaType.APPLICATION_JSON, Map.of("q", "0.9")));
+
     @Bean
     @LoadBalanced
-    public WebClient.Builder webClientBuilder(){
-        return WebClient.builder();
+    public WebClient.Builder webClientBuilder(ConcurrencyLimitFilter concurrencyLimitFilter){
+        return WebClient.builder()
+                .filter(concurrencyLimitFilter)
+                .codecs(configurer -> {
+                    configurer.customCodecs().register(new Jackson2CborEncoder());
+                    configurer.customCodecs().register(new Jackson2CborDecoder());
+                });
     }
 }
@@ -1,17 +1,26 @@
 package com.kuchtoker.orderservice.controller;
 
+import com.kuchtoker.orderservice.dto.OrderBatchResponse;
 import com.kuchtoker.orderservice.dto.OrderRequest;
+import com.kuchtoker.orderservice.dto.OrderViewResponse;
+import com.kuchtoker.orderservice.exception.ConcurrencyLimitExceededException;
+import com.kuchtoker.orderservice.service.AdaptiveConcurrencyLimiter;
+import com.kuchtoker.orderservice.service.IdempotencyStore;
+import com.kuchtoker.orderservice.service.OrderBatchService;
 import com.kuchtoker.orderservice.service.OrderService;
+import com.kuchtoker.orderservice.service.OrderViewService;
+import com.kuchtoker.orderservice.service.VirtualThreadOrderService;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.Instant;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -20,20 +29,69 @@ import java.util.concurrent.CompletableFuture;
 public class OrderController {
 
     private final OrderService orderService;
+    private final VirtualThreadOrderService virtualThreadOrderService;
+    private final IdempotencyStore idempotencyStore;
+    private final OrderViewService orderViewService;
+    private final OrderBatchService orderBatchService;
+    private final AdaptiveConcurrencyLimiter orderIntakeLimiter;
 
     @PostMapping
     @TimeLimiter(name = "inventory")
     @CircuitBreaker(name = "inventory", fallbackMethod = "fallbackMethod")
-    public CompletableFuture<ResponseEntity<String>> placeOrder(@RequestBody OrderRequest orderRequest) {
-        return CompletableFuture.supplyAsync(() -> {
-            String message = orderService.placeOrder(orderRequest);
-            return ResponseEntity.status(HttpStatus.CREATED).body(message);
-        });
+    public Mono<ResponseEntity<String>> placeOrder(@RequestBody OrderRequest orderRequest,
+                                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return orderIntakeLimiter.limit(Mono.defer(() -> place(orderRequest)));
+        }
+        return orderIntakeLimiter.limit(idempotencyStore.execute(idempotencyKey, orderRequest, () -> place(orderRequest)));
     }
 
-    public CompletableFuture<ResponseEntity<String>> fallbackMethod(OrderRequest orderRequest, RuntimeException runtimeException) {
+    private Mono<ResponseEntity<String>> place(OrderRequest orderRequest) {
+        Mono<String> placement = virtualThreadOrderService.isEnabled()
+                ? virtualThreadOrderService.placeOrder(orderRequest)
+                : orderService.placeOrder(orderRequest);
+        return placement
+                .map(message -> ResponseEntity.status(HttpStatus.CREATED).body(message));
+    }
+
+    public Mono<ResponseEntity<String>> fallbackMethod(OrderRequest orderRequest, String idempotencyKey, RuntimeException runtimeException) {
         log.error("Fallback triggered due to: {}", runtimeException.getMessage(), runtimeException);
         String fallbackMessage = "Fallback: Unable to place order right now, " + runtimeException.getMessage() + ", Please try again.";
-        return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(fallbackMessage));
+        return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(fallbackMessage));
+    }
+
+    // Timed out and circuit-broken inside OrderBatchService, before the commit only: a batch whose orders
+    // may already be committed must not be answered as failed
+    @PostMapping("/batch")
+    public Mono<OrderBatchResponse> placeOrders(@RequestBody List<OrderRequest> orderRequests,
+                                                @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return orderIntakeLimiter.limit(Mono.defer(() -> orderBatchService.placeOrders(orderRequests)));
+        }
+        return orderIntakeLimiter.limit(idempotencyStore.execute(idempotencyKey, orderRequests,
+                () -> orderBatchService.placeOrders(orderRequests)));
+    }
+
+    // Shed load is not a failure of the order: keep the exception so it is answered with a 503
+    public Mono<ResponseEntity<String>> fallbackMethod(OrderRequest orderRequest, String idempotencyKey,
+                                                       ConcurrencyLimitExceededException exception) {
+        return Mono.error(exception);
+    }
+
+    @GetMapping("/{orderNumber}")
+    public ResponseEntity<OrderViewResponse> getOrder(@PathVariable String orderNumber) {
+        return ResponseEntity.of(orderViewService.findByOrderNumber(orderNumber));
+    }
+
+    @GetMapping("/by-sku/{skuCode}")
+    public List<OrderViewResponse> getOrdersBySkuCode(@PathVariable String skuCode,
+                                                      @RequestParam(defaultValue = "50") int limit) {
+        return orderViewService.findBySkuCode(skuCode, limit);
+    }
+
+    @GetMapping("/by-time")
+    public List<OrderViewResponse> getOrdersByPlacedAt(@RequestParam Instant from, @RequestParam Instant to,
+                                                       @RequestParam(defaultValue = "50") int limit) {
+        return orderViewService.findByPlacedAt(from, to, limit);
     }
 }
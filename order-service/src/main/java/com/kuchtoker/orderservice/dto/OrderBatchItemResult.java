@@ -0,0 +1,22 @@
+package com.kuchtoker.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderBatchItemResult {
+
+	public enum Status { PLACED, FAILED }
+
+	private String orderNumber;
+	private Status status;
+	private BigDecimal totalPrice;
+	private String message;
+}
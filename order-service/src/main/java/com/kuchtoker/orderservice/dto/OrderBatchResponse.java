@@ -0,0 +1,19 @@
+package com.kuchtoker.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderBatchResponse {
+	private int placed;
+	private int failed;
+	// One entry per request order, in request order
+	private List<OrderBatchItemResult> results;
+}
@@ -0,0 +1,30 @@
+package com.kuchtoker.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderViewResponse {
+	private String orderNumber;
+	private Instant placedAt;
+	private BigDecimal totalPrice;
+	private List<LineItem> lineItems;
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class LineItem {
+		private String skuCode;
+		private Integer quantity;
+		private BigDecimal price;
+	}
+}
@@ -0,0 +1,19 @@
+package com.kuchtoker.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockHoldResponse {
+	private boolean success;
+	private String message;
+	private String holdId;
+	private Instant expiresAt;
+}
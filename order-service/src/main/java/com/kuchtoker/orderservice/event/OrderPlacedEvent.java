@@ -5,9 +5,34 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Event published when an order is placed. Built from plain values rather than the JPA
+ * entity, and encoded with {@link OrderPlacedEventCodec}.
+ */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class OrderPlacedEvent {
-	private Order order;
+	private String orderNumber;
+	private Instant placedAt;
+	private List<LineItem> lineItems;
+
+	public static OrderPlacedEvent from(Order order, Instant placedAt) {
+		return new OrderPlacedEvent(order.getOrderNumber(), placedAt, order.getOrderLineItemList().stream()
+				.map(item -> new LineItem(item.getSkuCode(), item.getQuantity(), item.getPrice()))
+				.toList());
+	}
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class LineItem {
+		private String skuCode;
+		private int quantity;
+		private BigDecimal price;
+	}
 }
@@ -1,5 +1,6 @@
 package com.kuchtoker.orderservice.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +18,18 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
 	}
 
+	@ExceptionHandler(ConcurrencyLimitExceededException.class)
+	public ResponseEntity<String> handleConcurrencyLimitExceededException(ConcurrencyLimitExceededException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(ex.getMessage());
+	}
+
+	@ExceptionHandler(OrderOutcomeUnknownException.class)
+	public ResponseEntity<String> handleOrderOutcomeUnknownException(OrderOutcomeUnknownException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+	}
+
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<String> handleGenericException(Exception ex) {
 		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,12 @@
+package com.kuchtoker.orderservice.exception;
+
+/**
+ * The orders may or may not have been placed: their commit failed or was not waited for. The
+ * caller should retry with the same {@code Idempotency-Key} or look the orders up, not place
+ * them again under a new key.
+ */
+public class OrderOutcomeUnknownException extends RuntimeException {
+	public OrderOutcomeUnknownException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,31 @@
+package com.kuchtoker.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A stock hold that still has to be confirmed for a committed order. Written in the order's
+ * transaction, so a placed order can never lose its confirmation.
+ */
+@Entity
+@Table(name = "t_hold_confirmation")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldConfirmation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String holdId;
+    private String orderNumber;
+    private Instant createdAt;
+    // Set while a relay is confirming the row outside any transaction; once past, another relay may take it over
+    private Instant claimedUntil;
+}
@@ -6,7 +6,7 @@ import lombok.*;
 import java.util.List;
 
 @Entity
-@Table(name = "t_orders")
+@Table(name = "t_orders", indexes = @Index(name = "ux_orders_order_number", columnList = "orderNumber", unique = true))
 @Getter
 @Setter
 @AllArgsConstructor
@@ -17,6 +17,10 @@ public class Order {
     @GeneratedValue(strategy =  GenerationType.IDENTITY)
     private Long id;
     private String orderNumber;
+    // The implicit join table, named explicitly because OrderBatchRepository writes it directly
     @OneToMany(cascade = CascadeType.ALL)
+    @JoinTable(name = "t_orders_order_line_item_list",
+            joinColumns = @JoinColumn(name = "order_id"),
+            inverseJoinColumns = @JoinColumn(name = "order_line_item_list_id"))
     private List<OrderLineItem> orderLineItemList;
 }
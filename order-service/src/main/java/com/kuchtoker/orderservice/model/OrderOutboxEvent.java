@@ -0,0 +1,25 @@
+package com.kuchtoker.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "t_order_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String orderNumber;
+    @Column(nullable = false, length = 65535)
+    private byte[] payload;
+    private Instant createdAt;
+}
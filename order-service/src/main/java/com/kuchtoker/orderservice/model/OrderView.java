@@ -0,0 +1,34 @@
+package com.kuchtoker.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Read-side copy of an order with its line items inlined as JSON, so order lookups never
+ * touch {@code t_orders} or join {@code t_order_line_items}.
+ */
+@Entity
+@Table(name = "t_order_view", indexes = {
+        @Index(name = "ux_order_view_order_number", columnList = "orderNumber", unique = true),
+        @Index(name = "ix_order_view_placed_at", columnList = "placedAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderView {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String orderNumber;
+    private Instant placedAt;
+    private BigDecimal totalPrice;
+    @Column(columnDefinition = "text")
+    private String lineItems;
+}
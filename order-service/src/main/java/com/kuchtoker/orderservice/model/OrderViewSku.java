@@ -0,0 +1,28 @@
+package com.kuchtoker.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// One row per (order, SKU); the index covers "latest orders for a SKU", order numbers included, so the
+// lookup neither reads the table rows nor touches t_order_view
+@Entity
+@Table(name = "t_order_view_sku", indexes = {
+        @Index(name = "ix_order_view_sku_sku_code_placed_at_order_number", columnList = "skuCode, placedAt, orderNumber")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderViewSku {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String skuCode;
+    private String orderNumber;
+    private Instant placedAt;
+}
@@ -0,0 +1,77 @@
+package com.kuchtoker.orderservice.repository;
+
+import com.kuchtoker.orderservice.model.HoldConfirmation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class HoldConfirmationRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO t_hold_confirmation (hold_id, order_number, created_at) VALUES (?, ?, ?)";
+
+    // SKIP LOCKED lets several relays claim side by side without taking the same row
+    private static final String LOCK_UNCLAIMED_SQL =
+            "SELECT id, hold_id, order_number, created_at, claimed_until FROM t_hold_confirmation "
+                    + "WHERE claimed_until IS NULL OR claimed_until < ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String CLAIM_SQL =
+            "UPDATE t_hold_confirmation SET claimed_until = :claimedUntil WHERE id IN (:ids)";
+
+    private static final String UNCLAIM_SQL =
+            "UPDATE t_hold_confirmation SET claimed_until = NULL WHERE id IN (:ids)";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM t_hold_confirmation WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public void insert(String holdId, String orderNumber, Instant createdAt) {
+        jdbcTemplate.update(INSERT_SQL, holdId, orderNumber, Timestamp.from(createdAt));
+    }
+
+    public void insertAll(List<HoldConfirmation> confirmations) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, confirmations, confirmations.size(), (ps, confirmation) -> {
+            ps.setString(1, confirmation.getHoldId());
+            ps.setString(2, confirmation.getOrderNumber());
+            ps.setTimestamp(3, Timestamp.from(confirmation.getCreatedAt()));
+        });
+    }
+
+    /**
+     * Takes the oldest rows that no relay is working on and marks them as claimed until the given
+     * time, so the caller can confirm them after its transaction committed. Must run in a transaction.
+     */
+    public List<HoldConfirmation> claimBatch(int batchSize, Instant now, Instant claimedUntil) {
+        List<HoldConfirmation> confirmations = jdbcTemplate.query(LOCK_UNCLAIMED_SQL, (rs, rowNum) -> new HoldConfirmation(
+                rs.getLong("id"),
+                rs.getString("hold_id"),
+                rs.getString("order_number"),
+                rs.getTimestamp("created_at").toInstant(),
+                claimedUntil), Timestamp.from(now), batchSize);
+        if (!confirmations.isEmpty()) {
+            namedParameterJdbcTemplate.update(CLAIM_SQL, Map.of(
+                    "claimedUntil", Timestamp.from(claimedUntil),
+                    "ids", confirmations.stream().map(HoldConfirmation::getId).toList()));
+        }
+        return confirmations;
+    }
+
+    public void unclaim(Collection<Long> ids) {
+        namedParameterJdbcTemplate.update(UNCLAIM_SQL, Map.of("ids", ids));
+    }
+
+    public void deleteAll(Collection<Long> ids) {
+        namedParameterJdbcTemplate.update(DELETE_SQL, Map.of("ids", ids));
+    }
+}
@@ -0,0 +1,176 @@
+package com.kuchtoker.orderservice.repository;
+
+import com.kuchtoker.orderservice.model.Order;
+import com.kuchtoker.orderservice.model.OrderLineItem;
+import com.kuchtoker.orderservice.model.OrderView;
+import com.kuchtoker.orderservice.model.OrderViewSku;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts orders and their read model rows as JDBC batches. The entities use IDENTITY ids,
+ * which stop Hibernate from batching inserts, so a bulk placement writes the same tables here
+ * with one batch per table. Drivers that rewrite batches into multi-row inserts do not promise
+ * to return generated keys in statement order, so ids are matched back by row content instead.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderBatchRepository {
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO t_orders (order_number) VALUES (?)";
+
+    private static final String FIND_ORDER_IDS_SQL =
+            "SELECT id, order_number FROM t_orders WHERE order_number IN (:orderNumbers)";
+
+    private static final String INSERT_LINE_ITEM_SQL =
+            "INSERT INTO t_order_line_items (sku_code, price, quantity) VALUES (?, ?, ?)";
+
+    private static final String FIND_LINE_ITEMS_SQL =
+            "SELECT id, sku_code, quantity FROM t_order_line_items WHERE id IN (:ids)";
+
+    // Join table named on Order#orderLineItemList
+    private static final String INSERT_ORDER_LINE_ITEM_SQL =
+            "INSERT INTO t_orders_order_line_item_list (order_id, order_line_item_list_id) VALUES (?, ?)";
+
+    private static final String INSERT_VIEW_SQL =
+            "INSERT INTO t_order_view (order_number, placed_at, total_price, line_items) VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_VIEW_SKU_SQL =
+            "INSERT INTO t_order_view_sku (sku_code, order_number, placed_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Inserts the orders with their line items and sets the generated ids on them.
+     */
+    public void insertOrders(List<Order> orders) {
+        jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orders, orders.size(),
+                (ps, order) -> ps.setString(1, order.getOrderNumber()));
+        // Order numbers are unique, so they map each generated id back to its order
+        Map<String, Long> orderIds = new HashMap<>();
+        namedParameterJdbcTemplate.query(FIND_ORDER_IDS_SQL,
+                Map.of("orderNumbers", orders.stream().map(Order::getOrderNumber).toList()),
+                rs -> {
+                    orderIds.put(rs.getString("order_number"), rs.getLong("id"));
+                });
+        for (Order order : orders) {
+            Long id = orderIds.get(order.getOrderNumber());
+            if (id == null) {
+                throw new IllegalStateException("No id was generated for order " + order.getOrderNumber());
+            }
+            order.setId(id);
+        }
+
+        List<OrderLineItem> lineItems = new ArrayList<>();
+        List<Long> lineItemOrderIds = new ArrayList<>();
+        for (Order order : orders) {
+            for (OrderLineItem item : order.getOrderLineItemList()) {
+                lineItems.add(item);
+                lineItemOrderIds.add(order.getId());
+            }
+        }
+        assignLineItemIds(lineItems, insertReturningIds(INSERT_LINE_ITEM_SQL, lineItems.size(), (ps, i) -> {
+            OrderLineItem item = lineItems.get(i);
+            ps.setString(1, item.getSkuCode());
+            ps.setBigDecimal(2, item.getPrice());
+            ps.setInt(3, item.getQuantity());
+        }));
+
+        jdbcTemplate.batchUpdate(INSERT_ORDER_LINE_ITEM_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, lineItemOrderIds.get(i));
+                ps.setLong(2, lineItems.get(i).getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lineItems.size();
+            }
+        });
+    }
+
+    public void insertViews(List<OrderView> views, List<OrderViewSku> viewSkus) {
+        jdbcTemplate.batchUpdate(INSERT_VIEW_SQL, views, views.size(), (ps, view) -> {
+            ps.setString(1, view.getOrderNumber());
+            ps.setTimestamp(2, Timestamp.from(view.getPlacedAt()));
+            ps.setBigDecimal(3, view.getTotalPrice());
+            ps.setString(4, view.getLineItems());
+        });
+        jdbcTemplate.batchUpdate(INSERT_VIEW_SKU_SQL, viewSkus, viewSkus.size(), (ps, viewSku) -> {
+            ps.setString(1, viewSku.getSkuCode());
+            ps.setString(2, viewSku.getOrderNumber());
+            ps.setTimestamp(3, Timestamp.from(viewSku.getPlacedAt()));
+        });
+    }
+
+    private void assignLineItemIds(List<OrderLineItem> lineItems, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        // Line items have no natural key, but within one batch every SKU carries the same price, so rows
+        // with equal SKU and quantity are interchangeable and any of their ids may go to any of them
+        Map<LineItemKey, Deque<Long>> idsByContent = new HashMap<>();
+        namedParameterJdbcTemplate.query(FIND_LINE_ITEMS_SQL, Map.of("ids", ids), rs -> {
+            idsByContent.computeIfAbsent(new LineItemKey(rs.getString("sku_code"), rs.getInt("quantity")),
+                    key -> new ArrayDeque<>()).add(rs.getLong("id"));
+        });
+        for (OrderLineItem item : lineItems) {
+            Deque<Long> candidates = idsByContent.get(new LineItemKey(item.getSkuCode(), item.getQuantity()));
+            if (candidates == null || candidates.isEmpty()) {
+                throw new IllegalStateException("No id was generated for line item " + item.getSkuCode());
+            }
+            item.setId(candidates.poll());
+        }
+    }
+
+    private List<Long> insertReturningIds(String sql, int size, RowSetter setter) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setter.setValues(ps, i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != size) {
+            throw new IllegalStateException("Expected " + size + " generated id(s) but got " + keys.size());
+        }
+        // MySQL reports the key as GENERATED_KEY and PostgreSQL as id, so take the only column; the order is not relied on
+        return keys.stream()
+                .map(key -> ((Number) key.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    private record LineItemKey(String skuCode, int quantity) {
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void setValues(PreparedStatement ps, int i) throws SQLException;
+    }
+}
@@ -0,0 +1,55 @@
+package com.kuchtoker.orderservice.repository;
+
+import com.kuchtoker.orderservice.model.OrderOutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderOutboxRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO t_order_outbox (order_number, payload, created_at) VALUES (?, ?, ?)";
+
+    // SKIP LOCKED lets several relays drain the outbox side by side without publishing a row twice
+    private static final String LOCK_BATCH_SQL =
+            "SELECT id, order_number, payload, created_at FROM t_order_outbox ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM t_order_outbox WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public void insert(String orderNumber, byte[] payload, Instant createdAt) {
+        jdbcTemplate.update(INSERT_SQL, orderNumber, payload, Timestamp.from(createdAt));
+    }
+
+    public void insertAll(List<OrderOutboxEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, event.getOrderNumber());
+            ps.setBytes(2, event.getPayload());
+            ps.setTimestamp(3, Timestamp.from(event.getCreatedAt()));
+        });
+    }
+
+    public List<OrderOutboxEvent> lockBatch(int batchSize) {
+        return jdbcTemplate.query(LOCK_BATCH_SQL, (rs, rowNum) -> new OrderOutboxEvent(
+                rs.getLong("id"),
+                rs.getString("order_number"),
+                rs.getBytes("payload"),
+                rs.getTimestamp("created_at").toInstant()), batchSize);
+    }
+
+    public void deleteAll(Collection<Long> ids) {
+        namedParameterJdbcTemplate.update(DELETE_SQL, Map.of("ids", ids));
+    }
+}
@@ -0,0 +1,16 @@
+package com.kuchtoker.orderservice.repository;
+
+import com.kuchtoker.orderservice.model.OrderView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderViewRepository extends JpaRepository<OrderView, Long> {
+	Optional<OrderView> findByOrderNumber(String orderNumber);
+	List<OrderView> findByOrderNumberIn(Collection<String> orderNumbers);
+	List<OrderView> findByPlacedAtGreaterThanEqualAndPlacedAtLessThanOrderByPlacedAtDesc(Instant from, Instant to, Pageable pageable);
+}
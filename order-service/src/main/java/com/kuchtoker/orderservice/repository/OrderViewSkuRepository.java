@@ -0,0 +1,16 @@
+package com.kuchtoker.orderservice.repository;
+
+import com.kuchtoker.orderservice.model.OrderViewSku;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OrderViewSkuRepository extends JpaRepository<OrderViewSku, Long> {
+
+	// Served entirely from ix_order_view_sku_sku_code_placed_at_order_number
+	@Query("select s.orderNumber from OrderViewSku s where s.skuCode = :skuCode order by s.placedAt desc")
+	List<String> findOrderNumbersBySkuCode(@Param("skuCode") String skuCode, Pageable pageable);
+}
@@ -0,0 +1,102 @@
+package com.kuchtoker.orderservice.service;
+
+import com.kuchtoker.orderservice.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit. A call that finishes within the latency threshold while at least half
+ * of the limit is in use raises the limit by one; a call that is slower, or that the caller
+ * reports as dropped, multiplies it by the backoff ratio. Calls beyond the limit are rejected
+ * at once, so overload shows up as fast failures instead of a queue of slow ones.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      Duration latencyThreshold, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || minLimit > maxLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings for " + name);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+
+        Gauge.builder("order.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("order.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .description("Calls currently holding a concurrency permit")
+                .tag("name", name)
+                .register(meterRegistry);
+        rejected = Counter.builder("order.concurrency.rejected")
+                .description("Calls shed because the concurrency limit was reached")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Takes a permit, or fails with {@link ConcurrencyLimitExceededException} when none is free.
+     * Every successful call must be matched by one {@link #release}.
+     */
+    public void acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                throw new ConcurrencyLimitExceededException(name, (int) limit);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit taken at {@code startNanos} and feeds the call's outcome into the limit.
+     */
+    public void release(long startNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        boolean slow = System.nanoTime() - startNanos > latencyThresholdNanos;
+        synchronized (this) {
+            if (dropped || slow) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlightBefore * 2 >= limit) {
+                // Only grow while the limit is actually being used, otherwise it drifts up unchecked
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code call} under a permit; latency is the only signal, since its errors are mostly business failures.
+     */
+    public <T> Mono<T> limit(Mono<T> call) {
+        return Mono.defer(() -> {
+            acquire();
+            long startNanos = System.nanoTime();
+            return call.doFinally(signal -> release(startNanos, false));
+        });
+    }
+}
@@ -0,0 +1,23 @@
+package com.kuchtoker.orderservice.service;
+
+import org.springframework.transaction.TransactionSystemException;
+
+/**
+ * Tells placement failures that happened before the order transaction committed from those
+ * where the commit itself failed. After the latter the order may exist, so its stock hold must
+ * not be released and the request must not run again.
+ */
+public final class CommitOutcome {
+
+    private CommitOutcome() {
+    }
+
+    public static boolean isUnknown(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransactionSystemException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package com.kuchtoker.orderservice.service;
+
+import com.kuchtoker.orderservice.config.WebClientConfig;
+import com.kuchtoker.orderservice.dto.StockHoldBatchResponse;
+import com.kuchtoker.orderservice.exception.CustomException;
+import com.kuchtoker.orderservice.model.HoldConfirmation;
+import com.kuchtoker.orderservice.repository.HoldConfirmationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Confirms the stock holds of committed orders from {@code t_hold_confirmation}. Rows are
+ * claimed in a short transaction and confirmed after it committed, so no lock is held while
+ * inventory-service answers. A row is only deleted once inventory-service has answered for it,
+ * so a failed call is retried on the next tick and a relay that died mid-call is taken over once
+ * its claim runs out; confirming a hold twice is harmless. inventory-service takes the stock of
+ * an expired hold again while there is enough, so only holds whose stock was sold are reported.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HoldConfirmationRelay {
+
+    private final HoldConfirmationRepository holdConfirmationRepository;
+    private final WebClient.Builder webClientBuilder;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${order.hold-confirmation.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${order.hold-confirmation.relay.interval-ms:100}")
+    private long intervalMs;
+
+    @Value("${order.hold-confirmation.relay.call-timeout-ms:10000}")
+    private long callTimeoutMs;
+
+    @Value("${order.hold-confirmation.relay.claim-ms:30000}")
+    private long claimMs;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private ScheduledExecutorService relay;
+    private Counter confirmed;
+    private Counter lost;
+
+    @PostConstruct
+    void start() {
+        if (claimMs <= callTimeoutMs) {
+            throw new IllegalStateException("order.hold-confirmation.relay.claim-ms must exceed call-timeout-ms");
+        }
+        confirmed = Counter.builder("order.hold-confirmation.confirmed")
+                .description("Stock holds confirmed for committed orders")
+                .register(meterRegistry);
+        lost = Counter.builder("order.hold-confirmation.lost")
+                .description("Stock holds of committed orders whose stock was sold before they could be confirmed")
+                .register(meterRegistry);
+        TimeGauge.builder("order.hold-confirmation.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::doubleValue)
+                .description("Age of the oldest pending hold confirmation in the last relay batch")
+                .register(meterRegistry);
+
+        relay = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("hold-confirmation-relay")
+                .daemon()
+                .unstarted(runnable));
+        relay.scheduleWithFixedDelay(this::drain, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (relay != null) {
+            relay.shutdown();
+        }
+    }
+
+    private void drain() {
+        try {
+            int relayed;
+            do {
+                relayed = confirmBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            log.error("Hold confirmation relay failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    private int confirmBatch() {
+        Instant now = Instant.now();
+        List<HoldConfirmation> confirmations = transactionTemplate.execute(
+                status -> holdConfirmationRepository.claimBatch(batchSize, now, now.plusMillis(claimMs)));
+        if (confirmations == null || confirmations.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Duration.between(confirmations.get(0).getCreatedAt(), now).toMillis());
+        List<Long> ids = confirmations.stream().map(HoldConfirmation::getId).toList();
+
+        StockHoldBatchResponse response;
+        try {
+            response = callConfirmBatch(confirmations);
+        } catch (RuntimeException e) {
+            // Back to the next tick instead of waiting out the claim
+            holdConfirmationRepository.unclaim(ids);
+            throw e;
+        }
+
+        Set<String> failedHoldIds = new HashSet<>(response.getFailedHoldIds());
+        for (HoldConfirmation confirmation : confirmations) {
+            if (failedHoldIds.contains(confirmation.getHoldId())) {
+                lost.increment();
+                log.error("Stock hold {} of placed order {} expired and its stock was sold before it could be confirmed",
+                        confirmation.getHoldId(), confirmation.getOrderNumber());
+            }
+        }
+        holdConfirmationRepository.deleteAll(ids);
+        confirmed.increment(confirmations.size() - failedHoldIds.size());
+        return confirmations.size();
+    }
+
+    private StockHoldBatchResponse callConfirmBatch(List<HoldConfirmation> confirmations) {
+        StockHoldBatchResponse response = webClientBuilder.build()
+                .post()
+                .uri("http://inventory-service/api/inventory/confirm-batch")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(WebClientConfig.BINARY_FIRST.toArray(MediaType[]::new))
+                .bodyValue(confirmations.stream().map(HoldConfirmation::getHoldId).toList())
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        clientResponse -> clientResponse.bodyToMono(String.class)
+                                .flatMap(errorMessage -> Mono.error(new CustomException(errorMessage))))
+                .bodyToMono(StockHoldBatchResponse.class)
+                .block(Duration.ofMillis(callTimeoutMs));
+        if (response == null) {
+            throw new CustomException("Empty answer from inventory-service confirm-batch");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,108 @@
+package com.kuchtoker.orderservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of order requests, single or batch, by {@code Idempotency-Key}. The
+ * first request for a key runs, concurrent repeats wait for it, and later repeats get the stored response. The first
+ * execution runs to completion even if its caller gives up. Failed attempts are forgotten, so
+ * they can be retried with the same key, unless the failure left the outcome unknown.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyStore {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${order.idempotency.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${order.idempotency.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    private Cache<String, Execution<?>> executions;
+    private Counter executed;
+    private Counter replayed;
+    private Counter joined;
+    private Counter conflicts;
+
+    @PostConstruct
+    void start() {
+        executions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, executions, "order.idempotency");
+        executed = counter("executed", "First request for a key, run normally");
+        replayed = counter("replayed", "Repeat of a completed request, answered from the store");
+        joined = counter("joined", "Repeat of an in-flight request, waited on the first execution");
+        conflicts = counter("conflict", "Key reused with a different request body");
+    }
+
+    /**
+     * Runs {@code action} for the first request with this key. {@code request} is the body the key
+     * was sent with; a repeat with a different body, or to another endpoint, is rejected.
+     */
+    public <T> Mono<T> execute(String key, Object request, Supplier<Mono<T>> action) {
+        return Mono.defer(() -> {
+            Execution<T> execution = new Execution<>(request, new CompletableFuture<>());
+            @SuppressWarnings("unchecked")
+            Execution<T> existing = (Execution<T>) executions.asMap().putIfAbsent(key, execution);
+            if (existing == null) {
+                executed.increment();
+                // Detached from this caller: a caller that times out must not cancel a placement that may
+                // already be committing, and its retry then finds the real outcome here
+                action.get()
+                        .switchIfEmpty(Mono.error(() -> new IllegalStateException("Order placement finished without a response")))
+                        .subscribe(execution.response()::complete, e -> forget(key, execution, e));
+                return Mono.fromFuture(execution.response(), true);
+            }
+            // Requests of the two endpoints never equal each other, so the stored response has type T here
+            if (!existing.request().equals(request)) {
+                conflicts.increment();
+                return Mono.error(new IllegalArgumentException("Idempotency-Key " + key + " was already used for a different order"));
+            }
+            (existing.response().isDone() ? replayed : joined).increment();
+            log.info("Idempotency-Key {} seen before, returning the first execution's response", key);
+            // A waiter giving up must not cancel the execution the others share
+            return Mono.fromFuture(existing.response(), true);
+        });
+    }
+
+    private void forget(String key, Execution<?> execution, Throwable failure) {
+        // Placement fails before its order transaction commits, except when the commit itself failed:
+        // then the order may exist, so the key keeps answering with this failure instead of running again
+        if (CommitOutcome.isUnknown(failure)) {
+            log.warn("Idempotency-Key {} kept after a failed commit, the order may have been placed", key);
+        } else {
+            executions.asMap().remove(key, execution);
+        }
+        execution.response().completeExceptionally(failure);
+    }
+
+    private Counter counter(String result, String description) {
+        return Counter.builder("order.idempotency.requests")
+                .tag("result", result)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private record Execution<T>(Object request, CompletableFuture<T> response) {
+    }
+}
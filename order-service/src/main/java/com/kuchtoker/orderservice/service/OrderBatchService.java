@@ -0,0 +1,311 @@
+package com.kuchtoker.orderservice.service;
+
+import com.kuchtoker.orderservice.config.ConcurrencyLimitFilter;
+import com.kuchtoker.orderservice.config.WebClientConfig;
+import com.kuchtoker.orderservice.dto.InventoryCheckRequest;
+import com.kuchtoker.orderservice.dto.OrderBatchItemResult;
+import com.kuchtoker.orderservice.dto.OrderBatchItemResult.Status;
+import com.kuchtoker.orderservice.dto.OrderBatchResponse;
+import com.kuchtoker.orderservice.dto.OrderRequest;
+import com.kuchtoker.orderservice.dto.OrderViewResponse;
+import com.kuchtoker.orderservice.dto.ProductExistsResponse;
+import com.kuchtoker.orderservice.dto.StockHoldBatchResponse;
+import com.kuchtoker.orderservice.dto.StockHoldResponse;
+import com.kuchtoker.orderservice.event.OrderPlacedEvent;
+import com.kuchtoker.orderservice.event.OrderPlacedEventCodec;
+import com.kuchtoker.orderservice.exception.ConcurrencyLimitExceededException;
+import com.kuchtoker.orderservice.exception.CustomException;
+import com.kuchtoker.orderservice.exception.OrderOutcomeUnknownException;
+import com.kuchtoker.orderservice.model.HoldConfirmation;
+import com.kuchtoker.orderservice.model.Order;
+import com.kuchtoker.orderservice.model.OrderOutboxEvent;
+import com.kuchtoker.orderservice.repository.HoldConfirmationRepository;
+import com.kuchtoker.orderservice.repository.OrderBatchRepository;
+import com.kuchtoker.orderservice.repository.OrderOutboxRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Places many orders at once. The whole batch costs one product lookup for the distinct SKUs,
+ * one reservation call and one transaction of JDBC batches, instead of those round trips per
+ * order; the holds are confirmed afterwards by {@link HoldConfirmationRelay}. Each order still
+ * succeeds or fails on its own.
+ * <p>
+ * Only the calls before the commit run under the {@code inventory} time limiter and circuit
+ * breaker, and a failure there fails the orders it reached. Once the orders are being saved the
+ * batch is never timed out: a commit whose outcome is unknown surfaces as
+ * {@link OrderOutcomeUnknownException} rather than as failed orders.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderBatchService {
+
+    private final OrderService orderService;
+    private final OrderBatchRepository orderBatchRepository;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final HoldConfirmationRepository holdConfirmationRepository;
+    private final OrderViewService orderViewService;
+    private final TransactionTemplate transactionTemplate;
+    private final WebClient.Builder webClientBuilder;
+    private final Scheduler orderPersistenceScheduler;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final TimeLimiterRegistry timeLimiterRegistry;
+
+    @Value("${order.batch.max-orders:500}")
+    private int maxOrders;
+
+    public Mono<OrderBatchResponse> placeOrders(List<OrderRequest> orderRequests) {
+        log.info("Inside OrderBatchService::placeOrders with {} order(s)", orderRequests.size());
+        if (orderRequests.isEmpty() || orderRequests.size() > maxOrders) {
+            return Mono.error(new IllegalArgumentException("A batch must hold between 1 and " + maxOrders + " orders"));
+        }
+
+        OrderBatchItemResult[] results = new OrderBatchItemResult[orderRequests.size()];
+        Order[] orders = new Order[orderRequests.size()];
+        Set<String> skuCodes = new LinkedHashSet<>();
+        for (int i = 0; i < orderRequests.size(); i++) {
+            OrderRequest orderRequest = orderRequests.get(i);
+            if (orderRequest.getOrderLineItemsDtoList() == null || orderRequest.getOrderLineItemsDtoList().isEmpty()) {
+                results[i] = failed(null, "Order has no line items");
+                continue;
+            }
+            orders[i] = orderService.createOrder(orderRequest);
+            skuCodes.addAll(orderService.skuCodesOf(orders[i]));
+        }
+        if (skuCodes.isEmpty()) {
+            return Mono.just(toResponse(results));
+        }
+
+        List<String> distinctSkuCodes = List.copyOf(skuCodes);
+        return beforeCommit(orderService.lookupProducts(distinctSkuCodes)
+                        .switchIfEmpty(Mono.error(() -> new CustomException("Empty answer from product lookup"))))
+                .onErrorResume(OrderBatchService::failsTheOrders, e -> {
+                    for (int i = 0; i < orders.length; i++) {
+                        if (orders[i] != null) {
+                            results[i] = failed(orders[i].getOrderNumber(), fallbackMessage(e));
+                        }
+                    }
+                    // The only way this stage ends empty, so the pricing below is skipped and the failed orders are answered
+                    return Mono.empty();
+                })
+                .flatMap(productResponses -> {
+                    if (productResponses.size() != distinctSkuCodes.size()) {
+                        return Mono.error(new CustomException("Product lookup answered " + productResponses.size()
+                                + " of " + distinctSkuCodes.size() + " SKU(s)"));
+                    }
+                    // The exists endpoint answers in request order, so pair responses with the SKUs asked for
+                    Map<String, ProductExistsResponse> productsBySkuCode = new HashMap<>();
+                    for (int i = 0; i < distinctSkuCodes.size(); i++) {
+                        productsBySkuCode.put(distinctSkuCodes.get(i), productResponses.get(i));
+                    }
+
+                    BigDecimal[] totals = new BigDecimal[orders.length];
+                    List<Integer> priced = new ArrayList<>();
+                    for (int i = 0; i < orders.length; i++) {
+                        if (orders[i] == null) {
+                            continue;
+                        }
+                        try {
+                            totals[i] = orderService.applyPrices(orders[i], orderService.skuCodesOf(orders[i]).stream()
+                                    .map(productsBySkuCode::get)
+                                    .toList());
+                            priced.add(i);
+                        } catch (RuntimeException e) {
+                            results[i] = failed(orders[i].getOrderNumber(), e.getMessage());
+                        }
+                    }
+                    if (priced.isEmpty()) {
+                        return Mono.just(toResponse(results));
+                    }
+                    return beforeCommit(reserveStock(priced.stream().map(i -> orderService.inventoryCheckListOf(orders[i])).toList()))
+                            // Holds taken by a reservation that failed here are unknown and simply expire
+                            .onErrorResume(OrderBatchService::failsTheOrders, e -> Mono.just(Collections.nCopies(priced.size(),
+                                    StockHoldResponse.builder().success(false).message(fallbackMessage(e)).build())))
+                            .flatMap(holds -> placeHeldOrders(orders, totals, priced, holds, results));
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> toResponse(results)));
+    }
+
+    private <T> Mono<T> beforeCommit(Mono<T> call) {
+        return call
+                .transformDeferred(TimeLimiterOperator.of(timeLimiterRegistry.timeLimiter("inventory")))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker("inventory")));
+    }
+
+    // Shed load is not a failure of the orders: it stays an error so it is answered with a 503
+    private static boolean failsTheOrders(Throwable e) {
+        return !(e instanceof ConcurrencyLimitExceededException);
+    }
+
+    private static String fallbackMessage(Throwable e) {
+        return "Fallback: Unable to place order right now, " + e.getMessage() + ", Please try again.";
+    }
+
+    private Mono<OrderBatchResponse> placeHeldOrders(Order[] orders, BigDecimal[] totals, List<Integer> priced,
+                                                     List<StockHoldResponse> holds, OrderBatchItemResult[] results) {
+        if (holds.size() != priced.size()) {
+            return Mono.error(new CustomException("Inventory answered " + holds.size() + " hold(s) for "
+                    + priced.size() + " order(s)"));
+        }
+
+        List<Order> heldOrders = new ArrayList<>();
+        Map<String, Integer> indexByHoldId = new HashMap<>();
+        Map<String, String> holdIdByOrderNumber = new HashMap<>();
+        for (int k = 0; k < priced.size(); k++) {
+            int i = priced.get(k);
+            StockHoldResponse hold = holds.get(k);
+            if (hold.isSuccess()) {
+                heldOrders.add(orders[i]);
+                indexByHoldId.put(hold.getHoldId(), i);
+                holdIdByOrderNumber.put(orders[i].getOrderNumber(), hold.getHoldId());
+            } else {
+                results[i] = failed(orders[i].getOrderNumber(), hold.getMessage() != null ? hold.getMessage() : "Insufficient stock");
+            }
+        }
+        if (heldOrders.isEmpty()) {
+            return Mono.just(toResponse(results));
+        }
+
+        List<String> holdIds = List.copyOf(indexByHoldId.keySet());
+        // Once committed, the holds are confirmed by HoldConfirmationRelay and must never be released here
+        return Mono.fromRunnable(() -> persistOrders(heldOrders, heldOrders.stream()
+                        .map(order -> holdIdByOrderNumber.get(order.getOrderNumber()))
+                        .toList()))
+                .subscribeOn(orderPersistenceScheduler)
+                .then(Mono.fromSupplier(() -> {
+                    indexByHoldId.forEach((holdId, i) -> results[i] = OrderBatchItemResult.builder()
+                            .orderNumber(orders[i].getOrderNumber())
+                            .status(Status.PLACED)
+                            .totalPrice(totals[i])
+                            .message("Order placed")
+                            .build());
+                    return toResponse(results);
+                }))
+                .onErrorResume(e -> {
+                    if (CommitOutcome.isUnknown(e)) {
+                        // The orders may exist, so their holds stay for the relay to confirm or to expire
+                        log.warn("Commit of an order batch failed, keeping {} hold(s) as the orders may exist", holdIds.size());
+                        return Mono.error(new OrderOutcomeUnknownException("Outcome unknown: the order batch may have been placed, "
+                                + "retry with the same Idempotency-Key or look the orders up", e));
+                    }
+                    log.warn("Order batch was not saved, releasing {} hold(s)", holdIds.size());
+                    return releaseQuietly(holdIds).then(Mono.fromSupplier(() -> {
+                        indexByHoldId.values().forEach(i -> results[i] = failed(orders[i].getOrderNumber(),
+                                "Order was not saved: " + e.getMessage()));
+                        return toResponse(results);
+                    }));
+                });
+    }
+
+    /**
+     * {@link OrderService#persistOrder} for many orders: the orders, their queued events, their
+     * read model rows and their pending hold confirmations are written as JDBC batches in one
+     * transaction. {@code holdIds} runs parallel to {@code orders}.
+     */
+    void persistOrders(List<Order> orders, List<String> holdIds) {
+        List<OrderViewResponse> views = transactionTemplate.execute(status -> {
+            orderBatchRepository.insertOrders(orders);
+            Instant placedAt = Instant.now();
+            orderOutboxRepository.insertAll(orders.stream()
+                    .map(order -> new OrderOutboxEvent(null, order.getOrderNumber(),
+                            OrderPlacedEventCodec.encode(OrderPlacedEvent.from(order, placedAt)), placedAt))
+                    .toList());
+            List<HoldConfirmation> confirmations = new ArrayList<>(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                confirmations.add(new HoldConfirmation(null, holdIds.get(i), orders.get(i).getOrderNumber(), placedAt, null));
+            }
+            holdConfirmationRepository.insertAll(confirmations);
+            return orderViewService.recordAll(orders, placedAt);
+        });
+        views.forEach(orderViewService::cacheRecent);
+    }
+
+    private Mono<List<StockHoldResponse>> reserveStock(List<List<InventoryCheckRequest>> inventoryCheckLists) {
+        log.info("Calling inventory Service to reserve stock for {} order(s)", inventoryCheckLists.size());
+        return webClientBuilder.build()
+                .post()
+                .uri("http://inventory-service/api/inventory/reserve-batch")
+                .attribute(ConcurrencyLimitFilter.LIMITED, true)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(WebClientConfig.BINARY_FIRST.toArray(MediaType[]::new))
+                .bodyValue(inventoryCheckLists)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        response -> response.bodyToMono(String.class)
+                                .flatMap(errorMessage -> {
+                                    log.error("Inventory service error: {}", errorMessage);
+                                    return Mono.error(new CustomException(errorMessage));
+                                })
+                )
+                .bodyToMono(new ParameterizedTypeReference<List<StockHoldResponse>>() {})
+                .switchIfEmpty(Mono.error(() -> new CustomException("Empty answer from inventory-service reserve-batch")));
+    }
+
+    private Mono<StockHoldBatchResponse> updateStockHolds(List<String> holdIds, String action) {
+        return webClientBuilder.build()
+                .post()
+                .uri("http://inventory-service/api/inventory/{action}", action)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(WebClientConfig.BINARY_FIRST.toArray(MediaType[]::new))
+                .bodyValue(holdIds)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        response -> response.bodyToMono(String.class)
+                                .flatMap(errorMessage -> {
+                                    log.error("Inventory service error on {} of {} hold(s): {}", action, holdIds.size(), errorMessage);
+                                    return Mono.error(new CustomException(errorMessage));
+                                })
+                )
+                .bodyToMono(StockHoldBatchResponse.class);
+    }
+
+    private Mono<Void> releaseQuietly(List<String> holdIds) {
+        return updateStockHolds(holdIds, "release-batch")
+                .onErrorResume(e -> {
+                    log.warn("Failed to release {} stock hold(s), they will expire on their own: {}", holdIds.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static OrderBatchItemResult failed(String orderNumber, String message) {
+        return OrderBatchItemResult.builder()
+                .orderNumber(orderNumber)
+                .status(Status.FAILED)
+                .message(message)
+                .build();
+    }
+
+    private static OrderBatchResponse toResponse(OrderBatchItemResult[] results) {
+        int placed = (int) Arrays.stream(results).filter(result -> result.getStatus() == Status.PLACED).count();
+        return OrderBatchResponse.builder()
+                .placed(placed)
+                .failed(results.length - placed)
+                .results(Arrays.asList(results))
+                .build();
+    }
+}
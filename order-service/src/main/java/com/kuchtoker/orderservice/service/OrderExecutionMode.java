@@ -0,0 +1,11 @@
+package com.kuchtoker.orderservice.service;
+
+/**
+ * How {@code POST /api/order} runs an order, selected with {@code order.execution-mode}.
+ */
+public enum OrderExecutionMode {
+    // Non-blocking Mono pipeline, blocking steps on the bounded persistence scheduler
+    REACTIVE,
+    // One virtual thread per order running the same steps as plain blocking calls
+    VIRTUAL_THREADS
+}
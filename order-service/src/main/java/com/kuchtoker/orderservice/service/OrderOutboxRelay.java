@@ -0,0 +1,124 @@
+package com.kuchtoker.orderservice.service;
+
+import com.kuchtoker.orderservice.model.OrderOutboxEvent;
+import com.kuchtoker.orderservice.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains {@code t_order_outbox} to the order topic in batches. Rows are deleted in the same
+ * transaction that locked them, and only after Kafka acknowledged the whole batch; with the
+ * idempotent producer a retried send is not duplicated within a producer session, and a
+ * crash between ack and delete leads to a resend rather than a lost event.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderOutboxRelay {
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${order.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.outbox.topic:orderTopic}")
+    private String topic;
+
+    @Value("${order.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${order.outbox.relay.interval-ms:100}")
+    private long intervalMs;
+
+    @Value("${order.outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private ScheduledExecutorService relay;
+    private DistributionSummary batchSizeSummary;
+    private Counter published;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        batchSizeSummary = DistributionSummary.builder("order.outbox.relay.batch.size")
+                .description("Order events published per relay batch")
+                .register(meterRegistry);
+        published = Counter.builder("order.outbox.relay.published")
+                .description("Order events published to Kafka")
+                .register(meterRegistry);
+        TimeGauge.builder("order.outbox.relay.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::doubleValue)
+                .description("Age of the oldest order event in the last relay batch")
+                .register(meterRegistry);
+
+        relay = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("order-outbox-relay")
+                .daemon()
+                .unstarted(runnable));
+        relay.scheduleWithFixedDelay(this::drain, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (relay != null) {
+            relay.shutdown();
+        }
+    }
+
+    private void drain() {
+        try {
+            // Keep going while batches come back full, so a backlog drains without waiting for the next tick
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (Exception e) {
+            log.error("Order outbox relay failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    private int relayBatch() {
+        List<OrderOutboxEvent> events = orderOutboxRepository.lockBatch(batchSize);
+        if (events.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Duration.between(events.get(0).getCreatedAt(), Instant.now()).toMillis());
+
+        // Keyed by order number so every event of one order lands on the same partition, in order
+        CompletableFuture<?>[] sends = events.stream()
+                .map(event -> kafkaTemplate.send(topic, event.getOrderNumber(), event.getPayload()))
+                .toArray(CompletableFuture[]::new);
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(sends).orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS).join();
+
+        orderOutboxRepository.deleteAll(events.stream().map(OrderOutboxEvent::getId).toList());
+        batchSizeSummary.record(events.size());
+        published.increment(events.size());
+        return events.size();
+    }
+}
@@ -1,147 +1,287 @@
 package com.kuchtoker.orderservice.service;
 
+import com.kuchtoker.orderservice.config.ConcurrencyLimitFilter;
+import com.kuchtoker.orderservice.config.WebClientConfig;
+import com.kuchtoker.orderservice.exception.ConcurrencyLimitExceededException;
 import com.kuchtoker.orderservice.exception.CustomException;
 import com.kuchtoker.orderservice.dto.*;
 import com.kuchtoker.orderservice.event.OrderPlacedEvent;
+import com.kuchtoker.orderservice.event.OrderPlacedEventCodec;
 import com.kuchtoker.orderservice.model.Order;
 import com.kuchtoker.orderservice.model.OrderLineItem;
+import com.kuchtoker.orderservice.repository.HoldConfirmationRepository;
+import com.kuchtoker.orderservice.repository.OrderOutboxRepository;
 import com.kuchtoker.orderservice.repository.OrderRepository;
 import io.micrometer.tracing.Span;
 import io.micrometer.tracing.Tracer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Order placement as a reactive pipeline. The product and inventory calls never block a
+ * thread; the JPA save, which does, runs on the bounded {@code orderPersistenceScheduler}
+ * so it cannot starve anything else.
+ */
 @Service
 @RequiredArgsConstructor
-@Transactional
 @Slf4j
 public class OrderService {
 
     private final OrderRepository orderRepository;
     private final WebClient.Builder webClientBuilder;
     private final Tracer tracer;
-    private final KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate;
-    public String placeOrder(OrderRequest orderRequest){
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final HoldConfirmationRepository holdConfirmationRepository;
+    private final OrderViewService orderViewService;
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler orderPersistenceScheduler;
+    private final ProductCache productCache;
+
+    @Value("${order.speculative-hold.enabled:false}")
+    private boolean speculativeHold;
+
+    public Mono<String> placeOrder(OrderRequest orderRequest){
+        Order order = createOrder(orderRequest);
+        List<String> skuCodes = skuCodesOf(order);
+        List<InventoryCheckRequest> inventoryCheckList = inventoryCheckListOf(order);
+        if (speculativeHold) {
+            return placeOrderWithSpeculativeHold(order, skuCodes, inventoryCheckList);
+        }
+
+        return lookupProducts(skuCodes)
+                .map(productResponses -> applyPrices(order, productResponses))
+                .flatMap(totalPrice -> {
+                    Span inventoryServiceLookup = tracer.nextSpan().name("InventoryServiceLookup").start();
+                    return reserveStock(inventoryCheckList)
+                            .flatMap(stockHold -> saveAndConfirm(order, stockHold))
+                            .doOnError(inventoryServiceLookup::error)
+                            .doFinally(signal -> inventoryServiceLookup.end())
+                            .thenReturn(String.format("Order [%s] placed successfully. Total amount to pay: ₹%.2f",
+                                    order.getOrderNumber(), totalPrice));
+                });
+    }
+
+    /**
+     * Holds the stock while the products are still being looked up, so the order waits for the
+     * slower of the two calls rather than both. Whatever happens to the lookup, a hold that was
+     * taken is released unless the order goes through.
+     */
+    private Mono<String> placeOrderWithSpeculativeHold(Order order, List<String> skuCodes,
+                                                       List<InventoryCheckRequest> inventoryCheckList) {
+        // Cached so the compensation below sees the hold without reserving a second time
+        Mono<StockHoldResponse> stockHold = traced("InventoryServiceHold", () -> reserveStock(inventoryCheckList)).cache();
+        Mono<List<ProductExistsResponse>> productResponses = traced("ProductServiceLookup", () -> lookupProducts(skuCodes));
+
+        // zipDelayError lets an in-flight hold finish instead of cancelling it, so its id is known for the release
+        return Mono.zipDelayError(productResponses, stockHold)
+                .onErrorResume(e -> {
+                    Throwable cause = Exceptions.unwrapMultiple(e).get(0);
+                    return stockHold.onErrorResume(ignored -> Mono.empty())
+                            .flatMap(hold -> releaseQuietly(hold.getHoldId()))
+                            .then(Mono.error(cause));
+                })
+                .flatMap(results -> {
+                    BigDecimal totalPrice;
+                    try {
+                        totalPrice = applyPrices(order, results.getT1());
+                    } catch (RuntimeException e) {
+                        return releaseQuietly(results.getT2().getHoldId()).then(Mono.error(e));
+                    }
+                    return saveAndConfirm(order, results.getT2())
+                            .thenReturn(String.format("Order [%s] placed successfully. Total amount to pay: ₹%.2f",
+                                    order.getOrderNumber(), totalPrice));
+                });
+    }
+
+    private <T> Mono<T> traced(String spanName, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            Span span = tracer.nextSpan().name(spanName).start();
+            return call.get()
+                    .doOnError(span::error)
+                    .doFinally(signal -> span.end());
+        });
+    }
+
+    Order createOrder(OrderRequest orderRequest) {
         Order order = new Order();
         order.setOrderNumber(UUID.randomUUID().toString());
-        List<String> missingProducts = null;
-        Map<String, BigDecimal> productPriceMap = null;
-        BigDecimal totalPrice = null;
-
-        List<OrderLineItem> orderLineItems = orderRequest.getOrderLineItemsDtoList()
+        order.setOrderLineItemList(orderRequest.getOrderLineItemsDtoList()
                 .stream()
                 .map(this::mapToDto)
-                .toList();
-        order.setOrderLineItemList(orderLineItems);
+                .toList());
+        return order;
+    }
 
-        List<String> skuCodes = orderLineItems.stream()
+    List<String> skuCodesOf(Order order) {
+        return order.getOrderLineItemList().stream()
                 .map(OrderLineItem::getSkuCode)
                 .toList();
+    }
 
-        // Create InventoryCheckRequest list
-        List<InventoryCheckRequest> inventoryCheckList = orderLineItems.stream()
+    List<InventoryCheckRequest> inventoryCheckListOf(Order order) {
+        return order.getOrderLineItemList().stream()
                 .map(item -> new InventoryCheckRequest(item.getSkuCode(), item.getQuantity()))
                 .toList();
+    }
 
-        boolean allProductsExist = false;
-
-        Span inventoryServiceLookup = tracer.nextSpan().name("InventoryServiceLookup");
-        boolean isProductExistsInMongoDB = false;
-
-        try {
-            log.info("Calling product exists Service for list of {}",skuCodes);
-            List<ProductExistsResponse> productResponses = webClientBuilder.build()
-                    .get()
-                    .uri("http://product-service/api/product/exists", uriBuilder ->
-                            uriBuilder.queryParam("name", skuCodes).build())
-                    .retrieve()
-                    .bodyToFlux(ProductExistsResponse.class)
-                    .collectList()
-                    .block();
-
-            allProductsExist = productResponses != null &&
-                    productResponses.stream().allMatch(ProductExistsResponse::isPresent);
-            log.info("product exists Service result {}", allProductsExist);
-            if(!allProductsExist) {
-                // Identify missing products
-                missingProducts = productResponses.stream()
-                        .filter(resp -> !resp.isPresent())
-                        .map(ProductExistsResponse::getName)
-                        .toList();
-            }
-             productPriceMap = productResponses.stream()
-                    .filter(ProductExistsResponse::isPresent)
-                    .collect(Collectors.toMap(ProductExistsResponse::getName, ProductExistsResponse::getPrice));
-        } catch (Exception e) {
-            log.warn("Failed to call product-service: {}", e.getMessage());
-        }
+    Mono<List<ProductExistsResponse>> lookupProducts(List<String> skuCodes) {
+        return productCache.lookup(skuCodes, this::fetchProducts);
+    }
 
-        if (allProductsExist) {
-            try (Tracer.SpanInScope spanInScope = tracer.withSpan(inventoryServiceLookup.start())) {
-
-	            if( productPriceMap != null){
-                    // Update price for each orderLineItem
-                    Map<String, BigDecimal> finalProductPriceMap = productPriceMap;
-                    orderLineItems.forEach(item -> {
-                        if (finalProductPriceMap.containsKey(item.getSkuCode())) {
-                            item.setPrice(finalProductPriceMap.get(item.getSkuCode()));
-                        }
-                    });
-
-                    // Calculate total order price
-                     totalPrice = orderLineItems.stream()
-                            .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    log.info("Total price of order: {}", totalPrice);
-                }
-
-                log.info("Calling inventory Service to check and deduct with inventoryCheckList: {}",inventoryCheckList);
-                InventoryResponse inventoryResponse = webClientBuilder.build()
-                        .post()
-                        .uri("http://inventory-service/api/inventory/check-and-deduct")
-                        .bodyValue(inventoryCheckList)
-                        .retrieve()
-                        .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                                response -> response.bodyToMono(String.class)
-                                        .flatMap(errorMessage -> {
-                                            log.error("Inventory service error: {}", errorMessage);
-                                            return Mono.error(new CustomException(errorMessage));
-                                        })
-                        )
-                        .bodyToMono(InventoryResponse.class)
-                        .block();
-
-
-                if (inventoryResponse != null && inventoryResponse.isSuccess()) {
-                    orderRepository.save(order);
-                    kafkaTemplate.send("orderTopic", new OrderPlacedEvent(order));
-                    return String.format("Order [%s] placed successfully. Total amount to pay: ₹%.2f",
-                            order.getOrderNumber(), totalPrice);
-                } else {
-                    throw new IllegalArgumentException("Insufficient stock");
-                }
-
-            } finally {
-                inventoryServiceLookup.end();
-            }
-        } else {
+    private Mono<List<ProductExistsResponse>> fetchProducts(List<String> skuCodes) {
+        log.info("Calling product exists Service for list of {}",skuCodes);
+        return webClientBuilder.build()
+                .get()
+                .uri("http://product-service/api/product/exists", uriBuilder ->
+                        uriBuilder.queryParam("name", skuCodes).build())
+                .attribute(ConcurrencyLimitFilter.LIMITED, true)
+                .accept(WebClientConfig.BINARY_FIRST.toArray(MediaType[]::new))
+                .retrieve()
+                // Read as one list: the CBOR decoder does not split a top-level array into a stream
+                .bodyToMono(new ParameterizedTypeReference<List<ProductExistsResponse>>() {})
+                // Shed calls keep their type so they still surface as a 503
+                .onErrorMap(e -> !(e instanceof ConcurrencyLimitExceededException), e -> {
+                    log.warn("Failed to call product-service: {}", e.getMessage());
+                    return new CustomException("Product lookup failed: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Fails with the missing SKUs unless every product exists, otherwise copies the current
+     * prices onto the line items and returns the order total.
+     */
+    BigDecimal applyPrices(Order order, List<ProductExistsResponse> productResponses) {
+        boolean allProductsExist = productResponses.stream().allMatch(ProductExistsResponse::isPresent);
+        log.info("product exists Service result {}", allProductsExist);
+        if (!allProductsExist) {
+            List<String> missingProducts = productResponses.stream()
+                    .filter(resp -> !resp.isPresent())
+                    .map(ProductExistsResponse::getName)
+                    .toList();
             log.warn("The following products are missing in product-service: {}", missingProducts);
             throw new IllegalArgumentException("Missing products: " + missingProducts);
         }
+
+        Map<String, BigDecimal> productPriceMap = productResponses.stream()
+                .collect(Collectors.toMap(ProductExistsResponse::getName, ProductExistsResponse::getPrice,
+                        (first, second) -> first));
+        order.getOrderLineItemList().forEach(item -> {
+            if (productPriceMap.containsKey(item.getSkuCode())) {
+                item.setPrice(productPriceMap.get(item.getSkuCode()));
+            }
+        });
+
+        BigDecimal totalPrice = order.getOrderLineItemList().stream()
+                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        log.info("Total price of order: {}", totalPrice);
+        return totalPrice;
+    }
+
+    Mono<StockHoldResponse> reserveStock(List<InventoryCheckRequest> inventoryCheckList) {
+        log.info("Calling inventory Service to reserve inventoryCheckList: {}",inventoryCheckList);
+        return webClientBuilder.build()
+                .post()
+                .uri("http://inventory-service/api/inventory/reserve")
+                .attribute(ConcurrencyLimitFilter.LIMITED, true)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(WebClientConfig.BINARY_FIRST.toArray(MediaType[]::new))
+                .bodyValue(inventoryCheckList)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        response -> response.bodyToMono(StockHoldResponse.class)
+                                .flatMap(errorResponse -> {
+                                    log.error("Inventory service error: {}", errorResponse.getMessage());
+                                    return Mono.error(new CustomException(errorResponse.getMessage()));
+                                })
+                )
+                .bodyToMono(StockHoldResponse.class)
+                .filter(StockHoldResponse::isSuccess)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Insufficient stock")));
     }
 
+    /**
+     * Saves the order together with the request to confirm its hold, which
+     * {@link HoldConfirmationRelay} carries out once committed. Only a failure before the commit
+     * releases the hold; after it the order exists and its hold must not go back on sale. When the
+     * commit itself failed the order may exist, so the hold is left to be confirmed or to expire.
+     */
+    Mono<Void> saveAndConfirm(Order order, StockHoldResponse stockHold) {
+        return saveOrder(order, stockHold.getHoldId())
+                .onErrorResume(e -> {
+                    if (CommitOutcome.isUnknown(e)) {
+                        log.warn("Commit of order {} failed, keeping hold {} as the order may exist",
+                                order.getOrderNumber(), stockHold.getHoldId());
+                        return Mono.error(e);
+                    }
+                    log.warn("Order {} was not saved, releasing hold {}", order.getOrderNumber(), stockHold.getHoldId());
+                    return releaseQuietly(stockHold.getHoldId()).then(Mono.error(e));
+                });
+    }
+
+    private Mono<Void> saveOrder(Order order, String holdId) {
+        return Mono.fromRunnable(() -> persistOrder(order, holdId))
+                .subscribeOn(orderPersistenceScheduler)
+                .then();
+    }
+
+    /**
+     * Saves the order, its read model rows, its queued {@link OrderPlacedEvent} and its pending
+     * hold confirmation in one transaction; {@link OrderOutboxRelay} and
+     * {@link HoldConfirmationRelay} act on them once committed.
+     */
+    void persistOrder(Order order, String holdId) {
+        OrderViewResponse view = transactionTemplate.execute(status -> {
+            orderRepository.save(order);
+            Instant placedAt = Instant.now();
+            orderOutboxRepository.insert(order.getOrderNumber(),
+                    OrderPlacedEventCodec.encode(OrderPlacedEvent.from(order, placedAt)), placedAt);
+            holdConfirmationRepository.insert(holdId, order.getOrderNumber(), placedAt);
+            return orderViewService.record(order, placedAt);
+        });
+        orderViewService.cacheRecent(view);
+    }
+
+    Mono<Void> updateStockHold(String holdId, String action) {
+        return webClientBuilder.build()
+                .post()
+                .uri("http://inventory-service/api/inventory/{action}/{holdId}", action, holdId)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        response -> response.bodyToMono(String.class)
+                                .flatMap(errorMessage -> {
+                                    log.error("Inventory service error on {} of hold {}: {}", action, holdId, errorMessage);
+                                    return Mono.error(new CustomException(errorMessage));
+                                })
+                )
+                .toBodilessEntity()
+                .then();
+    }
+
+    Mono<Void> releaseQuietly(String holdId) {
+        return updateStockHold(holdId, "release")
+                .onErrorResume(e -> {
+                    log.warn("Failed to release stock hold {}, it will expire on its own: {}", holdId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
 
     private OrderLineItem mapToDto(OrderLineItemListDto orderLineItemListDto) {
 
@@ -0,0 +1,192 @@
+package com.kuchtoker.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kuchtoker.orderservice.dto.OrderViewResponse;
+import com.kuchtoker.orderservice.exception.CustomException;
+import com.kuchtoker.orderservice.model.Order;
+import com.kuchtoker.orderservice.model.OrderView;
+import com.kuchtoker.orderservice.model.OrderViewSku;
+import com.kuchtoker.orderservice.repository.OrderBatchRepository;
+import com.kuchtoker.orderservice.repository.OrderViewRepository;
+import com.kuchtoker.orderservice.repository.OrderViewSkuRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains and serves the order read model ({@code t_order_view} and {@code t_order_view_sku}).
+ * Recently placed orders are also kept in memory, since status checks follow placement closely.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderViewService {
+
+    private static final TypeReference<List<OrderViewResponse.LineItem>> LINE_ITEMS = new TypeReference<>() {};
+
+    private final OrderViewRepository orderViewRepository;
+    private final OrderViewSkuRepository orderViewSkuRepository;
+    private final OrderBatchRepository orderBatchRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${order.view.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${order.view.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${order.view.max-limit:500}")
+    private int maxLimit;
+
+    private Cache<String, OrderViewResponse> recentOrders;
+
+    @PostConstruct
+    void start() {
+        recentOrders = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recentOrders, "order.view.recent");
+    }
+
+    /**
+     * Writes the read model rows for a saved order. Must run in the transaction that saved it.
+     */
+    public OrderViewResponse record(Order order, Instant placedAt) {
+        OrderViewResponse response = toResponse(order, placedAt);
+        orderViewRepository.save(toView(response));
+        orderViewSkuRepository.saveAll(toViewSkus(response));
+        return response;
+    }
+
+    /**
+     * Batched {@link #record} for orders saved together. Must run in the transaction that saved them.
+     */
+    public List<OrderViewResponse> recordAll(List<Order> orders, Instant placedAt) {
+        List<OrderViewResponse> responses = orders.stream().map(order -> toResponse(order, placedAt)).toList();
+        orderBatchRepository.insertViews(
+                responses.stream().map(this::toView).toList(),
+                responses.stream().flatMap(response -> toViewSkus(response).stream()).toList());
+        return responses;
+    }
+
+    /**
+     * Call once the transaction that recorded the order has committed.
+     */
+    public void cacheRecent(OrderViewResponse response) {
+        recentOrders.put(response.getOrderNumber(), response);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<OrderViewResponse> findByOrderNumber(String orderNumber) {
+        OrderViewResponse cached = recentOrders.getIfPresent(orderNumber);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return orderViewRepository.findByOrderNumber(orderNumber).map(this::toResponse);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderViewResponse> findBySkuCode(String skuCode, int limit) {
+        List<String> orderNumbers = orderViewSkuRepository.findOrderNumbersBySkuCode(skuCode, Pageable.ofSize(checkLimit(limit)));
+        if (orderNumbers.isEmpty()) {
+            return List.of();
+        }
+        Map<String, OrderView> views = orderViewRepository.findByOrderNumberIn(orderNumbers).stream()
+                .collect(Collectors.toMap(OrderView::getOrderNumber, Function.identity()));
+        // Keep the newest-first order of the index lookup
+        return orderNumbers.stream()
+                .map(views::get)
+                .filter(Objects::nonNull)
+                .map(this::toResponse)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderViewResponse> findByPlacedAt(Instant from, Instant to, int limit) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        return orderViewRepository.findByPlacedAtGreaterThanEqualAndPlacedAtLessThanOrderByPlacedAtDesc(
+                        from, to, Pageable.ofSize(checkLimit(limit)))
+                .stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    private int checkLimit(int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
+        }
+        return limit;
+    }
+
+    private OrderViewResponse toResponse(Order order, Instant placedAt) {
+        return OrderViewResponse.builder()
+                .orderNumber(order.getOrderNumber())
+                .placedAt(placedAt)
+                .totalPrice(order.getOrderLineItemList().stream()
+                        .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .lineItems(order.getOrderLineItemList().stream()
+                        .map(item -> new OrderViewResponse.LineItem(item.getSkuCode(), item.getQuantity(), item.getPrice()))
+                        .toList())
+                .build();
+    }
+
+    private OrderView toView(OrderViewResponse response) {
+        return new OrderView(null, response.getOrderNumber(), response.getPlacedAt(), response.getTotalPrice(),
+                writeLineItems(response.getLineItems()));
+    }
+
+    private List<OrderViewSku> toViewSkus(OrderViewResponse response) {
+        return response.getLineItems().stream()
+                .map(OrderViewResponse.LineItem::getSkuCode)
+                .distinct()
+                .map(skuCode -> new OrderViewSku(null, skuCode, response.getOrderNumber(), response.getPlacedAt()))
+                .toList();
+    }
+
+    private OrderViewResponse toResponse(OrderView view) {
+        try {
+            return OrderViewResponse.builder()
+                    .orderNumber(view.getOrderNumber())
+                    .placedAt(view.getPlacedAt())
+                    .totalPrice(view.getTotalPrice())
+                    .lineItems(objectMapper.readValue(view.getLineItems(), LINE_ITEMS))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new CustomException("Unreadable line items for order " + view.getOrderNumber());
+        }
+    }
+
+    private String writeLineItems(List<OrderViewResponse.LineItem> lineItems) {
+        try {
+            return objectMapper.writeValueAsString(lineItems);
+        } catch (JsonProcessingException e) {
+            throw new CustomException("Could not serialize line items: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.kuchtoker.orderservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kuchtoker.orderservice.config.WebClientConfig;
+import com.kuchtoker.orderservice.dto.ProductExistsResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Near-cache of product lookups by SKU. Misses for one lookup are fetched together, and
+ * concurrent lookups of the same SKU share the fetch. product-service publishes no change
+ * events, so the cache polls {@code GET /api/product/version} and drops every entry when the
+ * catalog version moves. While the version cannot be checked for longer than
+ * {@code order.product-cache.max-staleness-ms}, lookups bypass the cache.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCache {
+
+    private static final ParameterizedTypeReference<Map<String, Long>> VERSION = new ParameterizedTypeReference<>() {};
+
+    private final WebClient.Builder webClientBuilder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${order.product-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.product-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${order.product-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${order.product-cache.version-poll-ms:1000}")
+    private long versionPollMs;
+
+    @Value("${order.product-cache.max-staleness-ms:10000}")
+    private long maxStalenessMs;
+
+    private AsyncCache<String, ProductExistsResponse> products;
+    private ScheduledExecutorService poller;
+    private Counter invalidations;
+    private Counter bypassed;
+    private volatile long catalogVersion = -1;
+    private volatile long verifiedAtMillis;
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        products = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, products.synchronous(), "order.product-cache");
+        Gauge.builder("order.product-cache.hit-ratio", products, cache -> cache.synchronous().stats().hitRate())
+                .description("Share of SKU lookups answered without calling product-service")
+                .register(meterRegistry);
+        TimeGauge.builder("order.product-cache.staleness", this, TimeUnit.MILLISECONDS,
+                        cache -> cache.verifiedAtMillis == 0 ? Double.NaN : cache.stalenessMillis())
+                .description("Time since the cached entries were last checked against the catalog version")
+                .register(meterRegistry);
+        invalidations = Counter.builder("order.product-cache.invalidations")
+                .description("Times the cache was cleared because the catalog version moved")
+                .register(meterRegistry);
+        bypassed = Counter.builder("order.product-cache.bypassed")
+                .description("Lookups sent straight to product-service because the catalog version was unknown for too long")
+                .register(meterRegistry);
+
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("product-cache-version-poller")
+                .daemon()
+                .unstarted(runnable));
+        poller.scheduleWithFixedDelay(this::pollVersion, 0, versionPollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    /**
+     * Answers one response per SKU, in order, fetching only the SKUs that are not cached.
+     * The fetch must answer in the order of the SKUs it is given.
+     */
+    public Mono<List<ProductExistsResponse>> lookup(List<String> skuCodes,
+                                                    Function<List<String>, Mono<List<ProductExistsResponse>>> fetch) {
+        if (!enabled) {
+            return fetch.apply(skuCodes);
+        }
+        if (stalenessMillis() > maxStalenessMs) {
+            bypassed.increment();
+            return fetch.apply(skuCodes);
+        }
+        return Mono.defer(() -> Mono.fromFuture(products.getAll(skuCodes, (missing, executor) -> {
+                    List<String> missingSkuCodes = List.copyOf(missing);
+                    return fetch.apply(missingSkuCodes)
+                            .map(responses -> toMap(missingSkuCodes, responses))
+                            .toFuture();
+                }), true))
+                .map(responses -> skuCodes.stream().map(responses::get).toList());
+    }
+
+    private static Map<String, ProductExistsResponse> toMap(List<String> skuCodes, List<ProductExistsResponse> responses) {
+        if (responses.size() != skuCodes.size()) {
+            throw new IllegalStateException("Product lookup answered " + responses.size() + " of " + skuCodes.size() + " SKU(s)");
+        }
+        Map<String, ProductExistsResponse> responsesBySkuCode = new HashMap<>();
+        for (int i = 0; i < skuCodes.size(); i++) {
+            responsesBySkuCode.put(skuCodes.get(i), responses.get(i));
+        }
+        return responsesBySkuCode;
+    }
+
+    private void pollVersion() {
+        // The poller thread only starts the call; a tick that finds the previous poll still running skips
+        if (!polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            webClientBuilder.build()
+                    .get()
+                    .uri("http://product-service/api/product/version")
+                    .accept(WebClientConfig.BINARY_FIRST.toArray(MediaType[]::new))
+                    .retrieve()
+                    .bodyToMono(VERSION)
+                    .timeout(Duration.ofMillis(Math.max(versionPollMs, 1000)))
+                    .doFinally(signal -> polling.set(false))
+                    .subscribe(this::applyVersion,
+                            e -> log.warn("Could not check the catalog version: {}", e.getMessage()));
+        } catch (Exception e) {
+            polling.set(false);
+            log.warn("Could not check the catalog version: {}", e.getMessage());
+        }
+    }
+
+    private void applyVersion(Map<String, Long> response) {
+        long version = response.get("version");
+        if (version != catalogVersion) {
+            // In-flight loads are dropped too, so a response read before the change is never cached
+            products.synchronous().invalidateAll();
+            if (catalogVersion != -1) {
+                invalidations.increment();
+                log.info("Catalog version moved from {} to {}, cleared the product cache", catalogVersion, version);
+            }
+            catalogVersion = version;
+        }
+        verifiedAtMillis = System.currentTimeMillis();
+    }
+
+    private long stalenessMillis() {
+        // Until the first check succeeds nothing is known about the catalog, so count as stale
+        return verifiedAtMillis == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - verifiedAtMillis;
+    }
+}
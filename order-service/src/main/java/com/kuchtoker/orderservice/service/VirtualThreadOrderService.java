@@ -0,0 +1,138 @@
+package com.kuchtoker.orderservice.service;
+
+import com.kuchtoker.orderservice.dto.InventoryCheckRequest;
+import com.kuchtoker.orderservice.dto.OrderRequest;
+import com.kuchtoker.orderservice.dto.ProductExistsResponse;
+import com.kuchtoker.orderservice.dto.StockHoldResponse;
+import com.kuchtoker.orderservice.exception.CustomException;
+import com.kuchtoker.orderservice.model.Order;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each order on its own virtual thread using the steps of {@link OrderService} as plain
+ * blocking calls. Blocking a virtual thread releases its carrier, so thousands of in-flight
+ * orders cost no platform threads; the one shared resource left is the JDBC pool, which is
+ * guarded by a semaphore sized to it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VirtualThreadOrderService {
+
+    private final OrderService orderService;
+    private final Tracer tracer;
+    private final DataSource dataSource;
+
+    @Value("${order.execution-mode:reactive}")
+    private OrderExecutionMode executionMode;
+
+    @Value("${order.virtual-threads.db-permit-timeout-ms:5000}")
+    private long dbPermitTimeoutMs;
+
+    private ExecutorService executor;
+    private Scheduler scheduler;
+    private Semaphore dbPermits;
+
+    @PostConstruct
+    void start() throws SQLException {
+        if (executionMode != OrderExecutionMode.VIRTUAL_THREADS) {
+            return;
+        }
+        int poolSize = dataSource.isWrapperFor(HikariDataSource.class)
+                ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                : 10;
+        // Orders beyond the pool size park here, cheaply, instead of timing out inside Hikari
+        dbPermits = new Semaphore(poolSize, true);
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-vt-", 0).factory());
+        scheduler = Schedulers.fromExecutorService(executor, "order-virtual-threads");
+        log.info("Placing orders on virtual threads with {} database permit(s)", poolSize);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            scheduler.dispose();
+            executor.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return executionMode == OrderExecutionMode.VIRTUAL_THREADS;
+    }
+
+    public Mono<String> placeOrder(OrderRequest orderRequest) {
+        return Mono.fromCallable(() -> placeOrderBlocking(orderRequest)).subscribeOn(scheduler);
+    }
+
+    private String placeOrderBlocking(OrderRequest orderRequest) {
+        Order order = orderService.createOrder(orderRequest);
+        List<InventoryCheckRequest> inventoryCheckList = orderService.inventoryCheckListOf(order);
+
+        List<ProductExistsResponse> productResponses = orderService.lookupProducts(orderService.skuCodesOf(order)).block();
+        BigDecimal totalPrice = orderService.applyPrices(order, productResponses);
+
+        Span inventoryServiceLookup = tracer.nextSpan().name("InventoryServiceLookup");
+        try (Tracer.SpanInScope spanInScope = tracer.withSpan(inventoryServiceLookup.start())) {
+            StockHoldResponse stockHold = orderService.reserveStock(inventoryCheckList).block();
+            // Once committed, the hold is confirmed by HoldConfirmationRelay and must never be released here
+            try {
+                withDatabasePermit(() -> orderService.persistOrder(order, stockHold.getHoldId()));
+            } catch (RuntimeException e) {
+                // A failed commit may still have saved the order, so its hold stays for the relay or expiry
+                if (CommitOutcome.isUnknown(e)) {
+                    log.warn("Commit of order {} failed, keeping hold {} as the order may exist",
+                            order.getOrderNumber(), stockHold.getHoldId());
+                } else {
+                    log.warn("Order {} was not saved, releasing hold {}", order.getOrderNumber(), stockHold.getHoldId());
+                    orderService.releaseQuietly(stockHold.getHoldId()).block();
+                }
+                throw e;
+            }
+            return String.format("Order [%s] placed successfully. Total amount to pay: ₹%.2f",
+                    order.getOrderNumber(), totalPrice);
+        } catch (RuntimeException e) {
+            inventoryServiceLookup.error(e);
+            throw e;
+        } finally {
+            inventoryServiceLookup.end();
+        }
+    }
+
+    private void withDatabasePermit(Runnable action) {
+        boolean acquired;
+        try {
+            acquired = dbPermits.tryAcquire(dbPermitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Interrupted while waiting for a database connection");
+        }
+        if (!acquired) {
+            throw new CustomException("Timed out waiting for a database connection");
+        }
+        try {
+            action.run();
+        } finally {
+            dbPermits.release();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.kuchtoker.orderservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier, for example while blocking
+ * inside a {@code synchronized} block, using the JFR {@code jdk.VirtualThreadPinned} event.
+ * Only active in the virtual-thread execution mode.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final int LOGGED_FRAMES = 8;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${order.execution-mode:reactive}")
+    private OrderExecutionMode executionMode;
+
+    @Value("${order.virtual-threads.pinned-threshold-ms:20}")
+    private long pinnedThresholdMs;
+
+    private RecordingStream recordingStream;
+
+    @PostConstruct
+    void start() {
+        if (executionMode != OrderExecutionMode.VIRTUAL_THREADS) {
+            return;
+        }
+        Counter pinned = Counter.builder("order.virtual-threads.pinned")
+                .description("Virtual threads pinned to their carrier longer than the threshold")
+                .register(meterRegistry);
+
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(pinnedThresholdMs))
+                .withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinned.increment();
+            List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+            log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), frames.stream()
+                    .limit(LOGGED_FRAMES)
+                    .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                            + ":" + frame.getLineNumber())
+                    .collect(Collectors.joining(" <- ")));
+        });
+        recordingStream.startAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.kuchtoker.orderservice.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderPlacedEventCodecTest {
+
+	// Also asserted by notification-service's OrderPlacedEventCodecTest; both copies must keep producing it
+	static final String VERSION_1_FIXTURE = "0100054f52442d310000018bcfe5680000000002"
+			+ "001800096970686f6e655f31350000000201000000020301e847"
+			+ "000e0007706978656c5f380000000100";
+
+	// The fixture as a version 2 writer might send it: an int appended to the first line item and bytes after the event
+	static final String VERSION_2_FIXTURE = "0200054f52442d310000018bcfe5680000000002"
+			+ "001c00096970686f6e655f31350000000201000000020301e84700000007"
+			+ "000e0007706978656c5f380000000100"
+			+ "cafe";
+
+	@Test
+	void encodesTheSharedFixture() {
+		assertArrayEquals(HexFormat.of().parseHex(VERSION_1_FIXTURE), OrderPlacedEventCodec.encode(fixture()));
+	}
+
+	@Test
+	void decodesTheSharedFixture() {
+		assertEquals(fixture(), OrderPlacedEventCodec.decode(HexFormat.of().parseHex(VERSION_1_FIXTURE)));
+	}
+
+	@Test
+	void roundTripsPricesOfAnyScale() {
+		OrderPlacedEvent event = new OrderPlacedEvent("ORD-2", Instant.ofEpochMilli(1), List.of(
+				new OrderPlacedEvent.LineItem("a", 1, new BigDecimal("0.10")),
+				new OrderPlacedEvent.LineItem("b", 3, new BigDecimal("-12345678901234567890.123456789")),
+				new OrderPlacedEvent.LineItem("c", 0, BigDecimal.valueOf(5, -3))));
+
+		assertEquals(event, OrderPlacedEventCodec.decode(OrderPlacedEventCodec.encode(event)));
+	}
+
+	@Test
+	void readsANewerVersionIgnoringAppendedFields() {
+		assertEquals(fixture(), OrderPlacedEventCodec.decode(HexFormat.of().parseHex(VERSION_2_FIXTURE)));
+	}
+
+	@Test
+	void rejectsAnUnknownVersion() {
+		byte[] data = HexFormat.of().parseHex(VERSION_1_FIXTURE);
+		data[0] = 0;
+
+		assertThrows(IllegalArgumentException.class, () -> OrderPlacedEventCodec.decode(data));
+	}
+
+	@Test
+	void rejectsAPriceTooLongForItsLengthPrefix() {
+		OrderPlacedEvent event = new OrderPlacedEvent("ORD-3", Instant.ofEpochMilli(1), List.of(
+				new OrderPlacedEvent.LineItem("a", 1, new BigDecimal(BigInteger.ONE.shiftLeft(256 * 8)))));
+
+		assertThrows(IllegalArgumentException.class, () -> OrderPlacedEventCodec.encode(event));
+	}
+
+	@Test
+	void rejectsALineItemTooLongForItsLengthPrefix() {
+		OrderPlacedEvent event = new OrderPlacedEvent("ORD-4", Instant.ofEpochMilli(1), List.of(
+				new OrderPlacedEvent.LineItem("x".repeat(65_530), 1, null)));
+
+		assertThrows(IllegalArgumentException.class, () -> OrderPlacedEventCodec.encode(event));
+	}
+
+	private static OrderPlacedEvent fixture() {
+		return new OrderPlacedEvent("ORD-1", Instant.ofEpochMilli(1_700_000_000_000L), List.of(
+				new OrderPlacedEvent.LineItem("iphone_15", 2, new BigDecimal("1249.99")),
+				new OrderPlacedEvent.LineItem("pixel_8", 1, null)));
+	}
+}
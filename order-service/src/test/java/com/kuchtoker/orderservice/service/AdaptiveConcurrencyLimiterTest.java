@@ -0,0 +1,117 @@
+package com.kuchtoker.orderservice.service;
+
+import com.kuchtoker.orderservice.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final Duration THRESHOLD = Duration.ofSeconds(1);
+
+	private MeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	void growsByOneForAFastCallWhileAtLeastHalfTheLimitIsInUse() {
+		AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 10);
+		limiter.acquire();
+		limiter.acquire();
+
+		limiter.release(System.nanoTime(), false);
+
+		assertEquals(5, limiter.getLimit());
+	}
+
+	@Test
+	void doesNotGrowWhileMostOfTheLimitIsIdle() {
+		AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 10);
+		limiter.acquire();
+
+		limiter.release(System.nanoTime(), false);
+
+		assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	void backsOffForASlowCall() {
+		AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 10);
+		limiter.acquire();
+
+		limiter.release(System.nanoTime() - THRESHOLD.multipliedBy(2).toNanos(), false);
+
+		assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	void backsOffForADroppedCall() {
+		AdaptiveConcurrencyLimiter limiter = limiter(8, 1, 10);
+		limiter.acquire();
+
+		limiter.release(System.nanoTime(), true);
+
+		assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	void staysWithinItsBounds() {
+		AdaptiveConcurrencyLimiter limiter = limiter(3, 2, 3);
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire();
+			limiter.release(System.nanoTime(), true);
+		}
+		assertEquals(2, limiter.getLimit());
+
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire();
+			limiter.acquire();
+			limiter.release(System.nanoTime(), false);
+			limiter.release(System.nanoTime(), false);
+		}
+		assertEquals(3, limiter.getLimit());
+	}
+
+	@Test
+	void rejectsCallsBeyondTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10);
+		limiter.acquire();
+		limiter.acquire();
+
+		assertThrows(ConcurrencyLimitExceededException.class, limiter::acquire);
+		assertEquals(1.0, meterRegistry.get("order.concurrency.rejected").counter().count());
+	}
+
+	@Test
+	void limitedCallsReturnTheirPermit() {
+		AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 10);
+
+		assertEquals(1, limiter.limit(Mono.just(1)).block());
+		assertThrows(IllegalStateException.class, () -> limiter.limit(Mono.error(new IllegalStateException())).block());
+
+		assertEquals(0.0, meterRegistry.get("order.concurrency.in-flight").gauge().value());
+		limiter.acquire();
+	}
+
+	@Test
+	void rejectsInvalidSettings() {
+		assertThrows(IllegalArgumentException.class, () -> limiter(4, 0, 10));
+		assertThrows(IllegalArgumentException.class, () -> limiter(4, 5, 4));
+		assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(
+				"test", 4, 1, 10, 1.0, THRESHOLD, meterRegistry));
+	}
+
+	private AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit) {
+		return new AdaptiveConcurrencyLimiter("test", initialLimit, minLimit, maxLimit, 0.5, THRESHOLD, meterRegistry);
+	}
+}
@@ -0,0 +1,49 @@
+package com.kuchtoker.product_service.config;
+
+import com.kuchtoker.product_service.model.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * Fills {@code nameKey} for products stored before the field existed. Every name lookup goes
+ * through {@code nameKey}, so this runs before the web server starts: a legacy product is never
+ * reported missing, or created a second time, while the backfill is still running.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductNameKeyBackfill implements SmartInitializingSingleton {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Query missingNameKey = Query.query(Criteria.where("nameKey").exists(false));
+        missingNameKey.fields().include("name");
+
+        long updated = 0;
+        try (Stream<Product> products = mongoTemplate.stream(missingNameKey, Product.class)) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                try {
+                    mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(product.getId())),
+                            Update.update("nameKey", Product.nameKeyOf(product.getName())), Product.class);
+                    updated++;
+                } catch (DuplicateKeyException e) {
+                    log.warn("Product {} differs from another product only by case, leaving it without nameKey", product.getName());
+                }
+            }
+        }
+        if (updated > 0) {
+            log.info("Backfilled nameKey on {} product(s)", updated);
+        }
+    }
+}
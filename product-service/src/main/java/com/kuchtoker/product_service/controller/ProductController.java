@@ -1,15 +1,26 @@
 package com.kuchtoker.product_service.controller;
 
+import com.kuchtoker.product_service.dto.ProductBatchResponse;
 import com.kuchtoker.product_service.dto.ProductExistsResponse;
+import com.kuchtoker.product_service.dto.ProductPageResponse;
 import com.kuchtoker.product_service.dto.ProductRequest;
 import com.kuchtoker.product_service.dto.ProductResponse;
+import com.kuchtoker.product_service.service.CatalogVersionService;
+import com.kuchtoker.product_service.service.ProductBatchService;
+import com.kuchtoker.product_service.service.ProductSearchIndex;
 import com.kuchtoker.product_service.service.ProductService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/product")
@@ -17,21 +28,79 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductBatchService productBatchService;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogVersionService catalogVersionService;
     @PostMapping("/create")
 	@ResponseStatus(HttpStatus.CREATED)
 	public void createProduct(@RequestBody ProductRequest productRequest){
 	productService.createProduct(productRequest);
 	}
 
-    @GetMapping
+    @PostMapping("/batch")
     @ResponseStatus(HttpStatus.OK)
-    public List<ProductResponse> getAllProducts(){
+    public ProductBatchResponse createProducts(@RequestBody List<ProductRequest> productRequests) {
+        return productBatchService.createProducts(productRequests);
+    }
+
+    // No @ResponseStatus here: it would overwrite the 304 set by checkNotModified
+    @GetMapping
+    public List<ProductResponse> getAllProducts(WebRequest webRequest, HttpServletResponse response){
+        // Answers 304 from the cached catalog version, before any query reaches Mongo
+        varyByAccept(response);
+        if (webRequest.checkNotModified(catalogVersionService.etag())) {
+            return null;
+        }
         return productService.getAllProducts();
     }
 
+    @GetMapping("/version")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Long> getCatalogVersion() {
+        return Map.of("version", catalogVersionService.current());
+    }
+
+    @GetMapping("/page")
+    @ResponseStatus(HttpStatus.OK)
+    public ProductPageResponse getProductPage(@RequestParam(required = false) String after,
+                                              @RequestParam(defaultValue = "100") int size) {
+        return productService.getProductPage(after, size);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(productService::streamProducts);
+    }
+
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ProductResponse> searchProducts(@RequestParam String q,
+                                                @RequestParam(defaultValue = "20") int limit) {
+        return productSearchIndex.search(q, limit);
+    }
+
+    @GetMapping("/autocomplete")
+    @ResponseStatus(HttpStatus.OK)
+    public List<String> autocomplete(@RequestParam String prefix,
+                                     @RequestParam(defaultValue = "10") int limit) {
+        return productSearchIndex.autocomplete(prefix, limit);
+    }
+
 	@GetMapping("/exists")
-	public List<ProductExistsResponse> doesProductExist(@RequestParam List<String> name) {
+	public List<ProductExistsResponse> doesProductExist(@RequestParam List<String> name, WebRequest webRequest,
+														HttpServletResponse response) {
+		varyByAccept(response);
+		if (webRequest.checkNotModified(catalogVersionService.etag())) {
+			return null;
+		}
 		return productService.productExistsByName(name);
 	}
 
+    // The ETag is the catalog version whatever the encoding, so caches must keep the CBOR and JSON bodies apart
+    private static void varyByAccept(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
 }
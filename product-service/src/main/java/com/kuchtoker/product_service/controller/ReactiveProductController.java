@@ -0,0 +1,44 @@
+package com.kuchtoker.product_service.controller;
+
+import com.kuchtoker.product_service.dto.ProductExistsResponse;
+import com.kuchtoker.product_service.dto.ProductPageResponse;
+import com.kuchtoker.product_service.dto.ProductResponse;
+import com.kuchtoker.product_service.service.ReactiveProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive read endpoints. The request thread is handed back as soon as the Mongo query is
+ * issued and the response is written when the reactive driver completes.
+ */
+@RestController
+@RequestMapping("/api/product/reactive")
+@RequiredArgsConstructor
+public class ReactiveProductController {
+
+    private final ReactiveProductService reactiveProductService;
+
+    @GetMapping("/exists")
+    public Mono<List<ProductExistsResponse>> doesProductExist(@RequestParam List<String> name) {
+        return reactiveProductService.productExistsByName(name);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<ProductResponse> getAllProducts() {
+        return reactiveProductService.getAllProducts();
+    }
+
+    @GetMapping("/page")
+    public Mono<ProductPageResponse> getProductPage(@RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = "100") int size) {
+        return reactiveProductService.getProductPage(after, size);
+    }
+}
@@ -0,0 +1,21 @@
+package com.kuchtoker.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBatchItemResult {
+
+	public enum Status { CREATED, UPDATED, UNCHANGED, FAILED }
+
+	private String name;
+	private String id;
+	private Status status;
+	private boolean inventoryUpdated;
+	private String message;
+}
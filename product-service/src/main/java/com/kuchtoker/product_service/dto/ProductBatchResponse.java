@@ -0,0 +1,21 @@
+package com.kuchtoker.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBatchResponse {
+	private int created;
+	private int updated;
+	private int unchanged;
+	private int failed;
+	// One entry per request item, in request order
+	private List<ProductBatchItemResult> results;
+}
@@ -0,0 +1,18 @@
+package com.kuchtoker.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPageResponse {
+    private List<ProductResponse> items;
+    // Pass as "after" to fetch the next page; null on the last page
+    private String nextCursor;
+}
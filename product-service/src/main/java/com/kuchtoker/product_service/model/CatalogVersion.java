@@ -0,0 +1,17 @@
+package com.kuchtoker.product_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document(value = "catalog_version")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class CatalogVersion {
+    @Id
+    private String id;
+    private long version;
+}
@@ -5,9 +5,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
+import java.util.Locale;
 
 @Document(value = "product")
 @AllArgsConstructor
@@ -18,8 +20,13 @@ public class Product {
     @Id
     private String id;
     private  String name;
+    // Lower-cased, trimmed name; sparse so documents written before it existed do not collide on null
+    @Indexed(unique = true, sparse = true)
+    private String nameKey;
     private String description;
     private BigDecimal price;
 
-
+    public static String nameKeyOf(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
 }
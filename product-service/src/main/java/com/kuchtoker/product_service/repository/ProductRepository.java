@@ -2,11 +2,18 @@ package com.kuchtoker.product_service.repository;
 
 import com.kuchtoker.product_service.model.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ProductRepository extends MongoRepository<Product,String> {
 	Optional<Product> findByName(String name);
 	List<Product> findByNameIn(List<String> names);
+	Optional<Product> findByNameKey(String nameKey);
+
+	// Only the fields ProductExistsResponse needs, matched on the unique nameKey index
+	@Query(value = "{ 'nameKey': { $in: ?0 } }", fields = "{ 'name': 1, 'nameKey': 1, 'description': 1, 'price': 1 }")
+	List<Product> findExistingByNameKeyIn(Collection<String> nameKeys);
 }
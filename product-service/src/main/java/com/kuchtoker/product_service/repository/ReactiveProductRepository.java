@@ -0,0 +1,15 @@
+package com.kuchtoker.product_service.repository;
+
+import com.kuchtoker.product_service.model.Product;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String> {
+
+	// Same projection as ProductRepository#findExistingByNameKeyIn, without holding a thread while Mongo answers
+	@Query(value = "{ 'nameKey': { $in: ?0 } }", fields = "{ 'name': 1, 'nameKey': 1, 'description': 1, 'price': 1 }")
+	Flux<Product> findExistingByNameKeyIn(Collection<String> nameKeys);
+}
@@ -0,0 +1,92 @@
+package com.kuchtoker.product_service.service;
+
+import com.kuchtoker.product_service.model.CatalogVersion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the product catalog, stored in Mongo and bumped on every write.
+ * Reads are served from a local copy, refreshed in the background so changes made by other
+ * instances show up within {@code product.catalog.version.refresh-ms}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogVersionService {
+
+    private static final String CATALOG_ID = "catalog";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${product.catalog.version.refresh-ms:1000}")
+    private long refreshMs;
+
+    private final AtomicLong version = new AtomicLong();
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    void start() {
+        version.set(increment(0));
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> Thread.ofPlatform()
+                .name("catalog-version-refresher")
+                .daemon()
+                .unstarted(runnable));
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        log.info("Catalog version starts at {}", version.get());
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Strong ETag for responses built from the current catalog.
+     */
+    public String etag() {
+        return "\"" + current() + "\"";
+    }
+
+    public void bump() {
+        long bumped = increment(1);
+        version.accumulateAndGet(bumped, Math::max);
+    }
+
+    private long increment(long by) {
+        CatalogVersion catalogVersion = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(CATALOG_ID)),
+                new Update().inc("version", by),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                CatalogVersion.class);
+        return catalogVersion.getVersion();
+    }
+
+    private void refreshQuietly() {
+        try {
+            CatalogVersion catalogVersion = mongoTemplate.findById(CATALOG_ID, CatalogVersion.class);
+            if (catalogVersion != null) {
+                version.accumulateAndGet(catalogVersion.getVersion(), Math::max);
+            }
+        } catch (Exception e) {
+            log.warn("Could not refresh the catalog version: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.kuchtoker.product_service.service;
+
+import com.kuchtoker.product_service.dto.InventoryCheckRequest;
+import com.kuchtoker.product_service.dto.ProductBatchItemResult;
+import com.kuchtoker.product_service.dto.ProductBatchItemResult.Status;
+import com.kuchtoker.product_service.dto.ProductBatchResponse;
+import com.kuchtoker.product_service.dto.ProductRequest;
+import com.kuchtoker.product_service.exception.CustomException;
+import com.kuchtoker.product_service.model.Product;
+import com.kuchtoker.product_service.repository.ProductRepository;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creates or updates many products at once. Each chunk costs one lookup of the existing
+ * products, one unordered bulk write and one inventory call, instead of three round trips
+ * per product.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBatchService {
+
+	private static final int DUPLICATE_KEY = 11000;
+
+	private final ProductRepository productRepository;
+	private final MongoTemplate mongoTemplate;
+	private final WebClient.Builder webClientBuilder;
+	private final ProductSearchIndex productSearchIndex;
+	private final CatalogVersionService catalogVersionService;
+
+	@Value("${product.batch.chunk-size:1000}")
+	private int chunkSize;
+
+	public ProductBatchResponse createProducts(List<ProductRequest> productRequests) {
+		log.info("Inside ProductBatchService::createProducts with {} item(s)", productRequests.size());
+		List<ProductBatchItemResult> results = new ArrayList<>(productRequests.size());
+		List<Integer> accepted = new ArrayList<>();
+		Map<String, Integer> firstIndexByNameKey = new HashMap<>();
+
+		for (int i = 0; i < productRequests.size(); i++) {
+			ProductRequest request = productRequests.get(i);
+			ProductBatchItemResult result = ProductBatchItemResult.builder().name(request.getName()).build();
+			results.add(result);
+			String nameKey = Product.nameKeyOf(request.getName());
+			if (nameKey == null || nameKey.isEmpty()) {
+				fail(result, "Product name is required");
+			} else if (request.getPrice() == null) {
+				fail(result, "Product price is required");
+			} else if (firstIndexByNameKey.putIfAbsent(nameKey, i) != null) {
+				fail(result, "Duplicate of item " + firstIndexByNameKey.get(nameKey) + " in this batch");
+			} else {
+				accepted.add(i);
+			}
+		}
+
+		for (int from = 0; from < accepted.size(); from += chunkSize) {
+			List<Integer> chunk = accepted.subList(from, Math.min(from + chunkSize, accepted.size()));
+			writeChunk(chunk, productRequests, results);
+			addInventory(chunk, productRequests, results);
+		}
+
+		ProductBatchResponse response = ProductBatchResponse.builder().results(results).build();
+		for (ProductBatchItemResult result : results) {
+			switch (result.getStatus()) {
+				case CREATED -> response.setCreated(response.getCreated() + 1);
+				case UPDATED -> response.setUpdated(response.getUpdated() + 1);
+				case UNCHANGED -> response.setUnchanged(response.getUnchanged() + 1);
+				case FAILED -> response.setFailed(response.getFailed() + 1);
+			}
+		}
+		log.info("Product batch done: {} created, {} updated, {} unchanged, {} failed",
+				response.getCreated(), response.getUpdated(), response.getUnchanged(), response.getFailed());
+		return response;
+	}
+
+	private void writeChunk(List<Integer> chunk, List<ProductRequest> productRequests, List<ProductBatchItemResult> results) {
+		List<String> nameKeys = chunk.stream().map(i -> Product.nameKeyOf(productRequests.get(i).getName())).toList();
+		Map<String, Product> existingByNameKey = new HashMap<>();
+		for (Product product : productRepository.findExistingByNameKeyIn(nameKeys)) {
+			existingByNameKey.put(product.getNameKey(), product);
+		}
+
+		BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+		// Request index of every queued operation, so bulk write errors can be traced back to their item
+		List<Integer> operationItems = new ArrayList<>();
+		Map<Integer, Product> writtenProducts = new HashMap<>();
+		for (int i : chunk) {
+			ProductRequest request = productRequests.get(i);
+			ProductBatchItemResult result = results.get(i);
+			Product existing = existingByNameKey.get(Product.nameKeyOf(request.getName()));
+			if (existing == null) {
+				// Assign the id up front; bulk inserts do not write generated ids back
+				Product product = Product.builder()
+						.id(new ObjectId().toHexString())
+						.name(request.getName())
+						.nameKey(Product.nameKeyOf(request.getName()))
+						.description(request.getDescription())
+						.price(request.getPrice())
+						.build();
+				bulkOperations.insert(product);
+				operationItems.add(i);
+				writtenProducts.put(i, product);
+				result.setId(product.getId());
+				result.setStatus(Status.CREATED);
+			} else if (!Objects.equals(existing.getDescription(), request.getDescription())
+					|| existing.getPrice() == null || existing.getPrice().compareTo(request.getPrice()) != 0) {
+				bulkOperations.updateOne(Query.query(Criteria.where("_id").is(existing.getId())),
+						new Update().set("description", request.getDescription()).set("price", request.getPrice()));
+				operationItems.add(i);
+				existing.setDescription(request.getDescription());
+				existing.setPrice(request.getPrice());
+				writtenProducts.put(i, existing);
+				result.setId(existing.getId());
+				result.setStatus(Status.UPDATED);
+			} else {
+				result.setId(existing.getId());
+				result.setStatus(Status.UNCHANGED);
+			}
+		}
+
+		if (operationItems.isEmpty()) {
+			return;
+		}
+		try {
+			bulkOperations.execute();
+		} catch (BulkOperationException e) {
+			// Unordered: everything except the reported operations was applied
+			for (BulkWriteError error : e.getErrors()) {
+				fail(results.get(operationItems.get(error.getIndex())), describe(error));
+			}
+		} catch (RuntimeException e) {
+			log.error("Bulk write of {} product(s) failed: {}", operationItems.size(), e.getMessage(), e);
+			operationItems.forEach(i -> fail(results.get(i), "Product write failed"));
+		}
+		writtenProducts.forEach((i, product) -> {
+			if (results.get(i).getStatus() != Status.FAILED) {
+				productSearchIndex.index(product);
+			}
+		});
+		// Bumped even when some writes failed, since the rest were applied
+		catalogVersionService.bump();
+	}
+
+	private void addInventory(List<Integer> chunk, List<ProductRequest> productRequests, List<ProductBatchItemResult> results) {
+		List<Integer> written = chunk.stream().filter(i -> results.get(i).getStatus() != Status.FAILED).toList();
+		if (written.isEmpty()) {
+			return;
+		}
+		List<InventoryCheckRequest> inventoryRequests = written.stream()
+				.map(i -> new InventoryCheckRequest(productRequests.get(i).getName(), productRequests.get(i).getQuantity()))
+				.toList();
+		try {
+			webClientBuilder.build()
+					.post()
+					.uri("http://inventory-service/api/inventory/check-and-add")
+					.contentType(MediaType.APPLICATION_CBOR)
+					.bodyValue(inventoryRequests)
+					.retrieve()
+					.onStatus(
+							status -> status.is4xxClientError() || status.is5xxServerError(),
+							response -> response.bodyToMono(String.class)
+									.flatMap(errorMessage -> {
+										log.error("Inventory service error: {}", errorMessage);
+										return Mono.error(new CustomException(errorMessage));
+									})
+					)
+					.bodyToMono(Void.class)
+					.block();
+			written.forEach(i -> results.get(i).setInventoryUpdated(true));
+		} catch (Exception e) {
+			// The products are stored; only their stock is missing, so report it instead of failing them
+			log.error("Failed to update inventory for {} SKU(s): {}", written.size(), e.getMessage(), e);
+			written.forEach(i -> results.get(i).setMessage("Inventory update failed"));
+		}
+	}
+
+	private static String describe(BulkWriteError error) {
+		return error.getCode() == DUPLICATE_KEY ? "Product already exists" : error.getMessage();
+	}
+
+	private static void fail(ProductBatchItemResult result, String message) {
+		result.setStatus(Status.FAILED);
+		result.setMessage(message);
+	}
+}
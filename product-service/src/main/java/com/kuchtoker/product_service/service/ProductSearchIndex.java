@@ -0,0 +1,297 @@
+package com.kuchtoker.product_service.service;
+
+import com.kuchtoker.product_service.dto.ProductResponse;
+import com.kuchtoker.product_service.model.Product;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index and prefix trie over product names and descriptions. Built from
+ * Mongo at startup and kept current by the write paths of this instance, so keyword search
+ * and autocomplete never touch the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Rough per-entry costs of the JVM objects behind each structure, for the memory gauge only
+    private static final long BYTES_PER_TRIE_NODE = 72;
+    private static final long BYTES_PER_POSTING = 48;
+    private static final long BYTES_PER_PRODUCT = 160;
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, ProductResponse> products = new HashMap<>();
+    private final Map<String, Set<String>> tokensByProduct = new HashMap<>();
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final TrieNode root = new TrieNode();
+    private long trieNodes = 1;
+    private long postingCount;
+
+    private Timer searchTimer;
+    private Timer autocompleteTimer;
+
+    @PostConstruct
+    void start() {
+        searchTimer = Timer.builder("product.search.latency")
+                .tag("query", "search")
+                .description("Time to answer a keyword search from the in-memory index")
+                .register(meterRegistry);
+        autocompleteTimer = Timer.builder("product.search.latency")
+                .tag("query", "autocomplete")
+                .description("Time to answer a prefix lookup from the in-memory index")
+                .register(meterRegistry);
+        Gauge.builder("product.search.index.products", this, index -> index.read(() -> index.products.size()))
+                .description("Products held in the search index")
+                .register(meterRegistry);
+        Gauge.builder("product.search.index.terms", this, index -> index.read(() -> index.postings.size()))
+                .description("Distinct terms in the search index")
+                .register(meterRegistry);
+        Gauge.builder("product.search.index.memory", this, index -> index.read(index::estimatedBytes))
+                .description("Estimated heap used by the search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        long started = System.nanoTime();
+        Query query = new Query();
+        query.fields().include("name").include("description").include("price");
+        try (Stream<Product> stream = mongoTemplate.stream(query, Product.class)) {
+            stream.forEach(this::index);
+        }
+        log.info("Search index built with {} product(s) and {} term(s) in {} ms",
+                products.size(), postings.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Adds a product or replaces the indexed copy of it.
+     */
+    public void index(Product product) {
+        Set<String> tokens = new HashSet<>(tokenize(product.getName()));
+        tokens.addAll(tokenize(product.getDescription()));
+        ProductResponse response = ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .build();
+
+        lock.writeLock().lock();
+        try {
+            Set<String> previous = tokensByProduct.put(product.getId(), tokens);
+            if (previous != null) {
+                for (String token : previous) {
+                    if (!tokens.contains(token)) {
+                        removePosting(token, product.getId());
+                    }
+                }
+            }
+            for (String token : tokens) {
+                if (previous == null || !previous.contains(token)) {
+                    addPosting(token, product.getId());
+                }
+            }
+            products.put(product.getId(), response);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexAll(Collection<Product> products) {
+        products.forEach(this::index);
+    }
+
+    /**
+     * Products containing every term of the query; the last term also matches as a prefix
+     * so results keep up while the user is typing.
+     */
+    public List<ProductResponse> search(String text, int limit) {
+        return searchTimer.record(() -> read(() -> matchingIds(tokenize(text), Integer.MAX_VALUE).stream()
+                .map(products::get)
+                .sorted(Comparator.comparing(ProductResponse::getName, String.CASE_INSENSITIVE_ORDER))
+                .limit(limit)
+                .toList()));
+    }
+
+    /**
+     * Distinct product names matching what has been typed so far, tokenized like {@link #search}:
+     * "red sh" suggests products with the word "red" and a word starting with "sh".
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        return autocompleteTimer.record(() -> read(() -> {
+            Set<String> names = new LinkedHashSet<>();
+            for (String id : matchingIds(tokenize(prefix), limit)) {
+                names.add(products.get(id).getName());
+            }
+            return names.stream().sorted(String.CASE_INSENSITIVE_ORDER).limit(limit).toList();
+        }));
+    }
+
+    /**
+     * Ids matching every term. A single term walks the trie in lexical order and stops after
+     * {@code limit} ids; several terms return the whole intersection, which is unordered, so
+     * callers sort it before cutting it to size.
+     */
+    private Set<String> matchingIds(List<String> terms, int limit) {
+        if (terms.isEmpty()) {
+            return Set.of();
+        }
+        if (terms.size() == 1) {
+            return idsWithPrefix(terms.get(0), limit);
+        }
+        // Every term but the last must match a whole word
+        Set<String> matches = null;
+        for (int i = 0; i < terms.size(); i++) {
+            Set<String> termMatches = i == terms.size() - 1
+                    ? idsWithPrefix(terms.get(i), Integer.MAX_VALUE)
+                    : postings.getOrDefault(terms.get(i), Set.of());
+            if (matches == null) {
+                matches = new HashSet<>(termMatches);
+            } else {
+                matches.retainAll(termMatches);
+            }
+            if (matches.isEmpty()) {
+                return Set.of();
+            }
+        }
+        return matches;
+    }
+
+    private Set<String> idsWithPrefix(String prefix, int limit) {
+        TrieNode node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        if (node != null) {
+            collect(node, prefix, ids, limit);
+        }
+        return ids;
+    }
+
+    private void collect(TrieNode node, String term, Set<String> ids, int limit) {
+        if (node.terminal) {
+            for (String id : postings.get(term)) {
+                if (ids.size() >= limit) {
+                    return;
+                }
+                ids.add(id);
+            }
+        }
+        for (Map.Entry<Character, TrieNode> child : node.children.entrySet()) {
+            if (ids.size() >= limit) {
+                return;
+            }
+            collect(child.getValue(), term + child.getKey(), ids, limit);
+        }
+    }
+
+    private void addPosting(String token, String productId) {
+        Set<String> ids = postings.computeIfAbsent(token, key -> {
+            TrieNode node = root;
+            for (int i = 0; i < key.length(); i++) {
+                TrieNode next = node.children.get(key.charAt(i));
+                if (next == null) {
+                    next = new TrieNode();
+                    node.children.put(key.charAt(i), next);
+                    trieNodes++;
+                }
+                node = next;
+            }
+            node.terminal = true;
+            return new HashSet<>();
+        });
+        if (ids.add(productId)) {
+            postingCount++;
+        }
+    }
+
+    private void removePosting(String token, String productId) {
+        Set<String> ids = postings.get(token);
+        if (ids == null || !ids.remove(productId)) {
+            return;
+        }
+        postingCount--;
+        if (ids.isEmpty()) {
+            postings.remove(token);
+            unlink(token);
+        }
+    }
+
+    private void unlink(String token) {
+        // Walk down remembering the path, then prune nodes that no longer lead to any term
+        List<TrieNode> path = new ArrayList<>(token.length() + 1);
+        TrieNode node = root;
+        path.add(node);
+        for (int i = 0; i < token.length(); i++) {
+            node = node.children.get(token.charAt(i));
+            path.add(node);
+        }
+        node.terminal = false;
+        for (int i = token.length(); i > 0; i--) {
+            TrieNode current = path.get(i);
+            if (current.terminal || !current.children.isEmpty()) {
+                break;
+            }
+            path.get(i - 1).children.remove(token.charAt(i - 1));
+            trieNodes--;
+        }
+    }
+
+    private long estimatedBytes() {
+        return trieNodes * BYTES_PER_TRIE_NODE + postingCount * BYTES_PER_POSTING + products.size() * BYTES_PER_PRODUCT;
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Stream.of(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static final class TrieNode {
+        // Sorted so autocomplete walks terms in lexical order
+        private final Map<Character, TrieNode> children = new TreeMap<>();
+        private boolean terminal;
+    }
+}
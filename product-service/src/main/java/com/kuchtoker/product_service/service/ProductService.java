@@ -1,8 +1,10 @@
 package com.kuchtoker.product_service.service;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kuchtoker.product_service.dto.InventoryCheckRequest;
 import com.kuchtoker.product_service.dto.ProductExistsResponse;
+import com.kuchtoker.product_service.dto.ProductPageResponse;
 import com.kuchtoker.product_service.dto.ProductRequest;
 import com.kuchtoker.product_service.dto.ProductResponse;
 import com.kuchtoker.product_service.exception.CustomException;
@@ -10,11 +12,25 @@ import com.kuchtoker.product_service.model.Product;
 import com.kuchtoker.product_service.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,9 +38,20 @@ import java.util.Optional;
 public class ProductService {
     private final ProductRepository productRepository;
     private final WebClient.Builder webClientBuilder;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogVersionService catalogVersionService;
+
+    @Value("${product.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${product.stream.batch-size:500}")
+    private int streamBatchSize;
+
     public void createProduct(ProductRequest productRequest) {
         // 1. Check if product already exists (based on name in this example)
-        Optional<Product> existingProductOpt = productRepository.findByName(productRequest.getName());
+        Optional<Product> existingProductOpt = productRepository.findByNameKey(Product.nameKeyOf(productRequest.getName()));
 
         Product product;
         if (existingProductOpt.isPresent()) {
@@ -44,16 +71,21 @@ public class ProductService {
             }
             if (isUpdated) {
                 productRepository.save(product);
+                productSearchIndex.index(product);
+                catalogVersionService.bump();
             }
         } else {
             // 2. Save new product in DB
             product = Product.builder()
                     .name(productRequest.getName())
+                    .nameKey(Product.nameKeyOf(productRequest.getName()))
                     .description(productRequest.getDescription())
                     .price(productRequest.getPrice())
                     .build();
 
             productRepository.save(product);
+            productSearchIndex.index(product);
+            catalogVersionService.bump();
             log.info("Product {} is created and saved", product.getId());
         }
 
@@ -68,6 +100,7 @@ public class ProductService {
             webClientBuilder.build()
                     .post()
                     .uri("http://inventory-service/api/inventory/check-and-add")
+                    .contentType(MediaType.APPLICATION_CBOR)
                     .bodyValue(List.of(inventoryRequest)) // inventory API expects a list
                     .retrieve()
                     .onStatus(
@@ -92,10 +125,56 @@ public class ProductService {
 
     public List<ProductResponse> getAllProducts() {
         List <Product> products = productRepository.findAll();
-        return products.stream().map(this::mapToProductResponse).toList();
+        return products.stream().map(ProductService::mapToProductResponse).toList();
+    }
+
+    /**
+     * Keyset page ordered by id: each page resumes after the last id of the previous one,
+     * so deep pages cost the same as the first and concurrent inserts do not shift them.
+     */
+    public ProductPageResponse getProductPage(String after, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(size + 1);
+        if (after != null && !after.isBlank()) {
+            if (!ObjectId.isValid(after)) {
+                throw new IllegalArgumentException("Invalid cursor: " + after);
+            }
+            query.addCriteria(Criteria.where("_id").gt(new ObjectId(after)));
+        }
+
+        List<Product> products = mongoTemplate.find(query, Product.class);
+        boolean hasMore = products.size() > size;
+        List<Product> page = hasMore ? products.subList(0, size) : products;
+        return ProductPageResponse.builder()
+                .items(page.stream().map(ProductService::mapToProductResponse).toList())
+                .nextCursor(hasMore ? page.get(page.size() - 1).getId() : null)
+                .build();
+    }
+
+    /**
+     * Writes the whole catalog as NDJSON straight from a Mongo cursor. Documents are pulled one
+     * cursor batch at a time and a slow client blocks the write, so memory stays flat.
+     */
+    public void streamProducts(OutputStream outputStream) throws IOException {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(streamBatchSize);
+        int written = 0;
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                outputStream.write(objectMapper.writeValueAsBytes(mapToProductResponse(iterator.next())));
+                outputStream.write('\n');
+                if (++written % streamBatchSize == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+        outputStream.flush();
+        log.info("Streamed {} product(s)", written);
     }
 
-    private ProductResponse mapToProductResponse(Product product) {
+    static ProductResponse mapToProductResponse(Product product) {
         return ProductResponse.builder()
                 .id(product.getId())
                 .description(product.getDescription())
@@ -104,16 +183,21 @@ public class ProductService {
                 .build();
     }
     public List<ProductExistsResponse> productExistsByName(List<String> names) {
-        List<Product> foundProducts = productRepository.findByNameIn(names);
+        List<String> nameKeys = names.stream().map(Product::nameKeyOf).distinct().toList();
 
-        // Convert to response and mark which products were found
-        return names.stream().map(name -> {
-            Optional<Product> match = foundProducts.stream()
-                    .filter(p -> p.getName().equalsIgnoreCase(name))
-                    .findFirst();
+        // Index the matches by normalized name so each requested name is a single lookup
+        Map<String, Product> productsByNameKey = new HashMap<>();
+        for (Product product : productRepository.findExistingByNameKeyIn(nameKeys)) {
+            productsByNameKey.put(product.getNameKey(), product);
+        }
 
-            if (match.isPresent()) {
-                Product product = match.get();
+        return toExistsResponses(names, productsByNameKey);
+    }
+
+    static List<ProductExistsResponse> toExistsResponses(List<String> names, Map<String, Product> productsByNameKey) {
+        return names.stream().map(name -> {
+            Product product = productsByNameKey.get(Product.nameKeyOf(name));
+            if (product != null) {
                 return ProductExistsResponse.builder()
                         .id(product.getId())
                         .name(product.getName())
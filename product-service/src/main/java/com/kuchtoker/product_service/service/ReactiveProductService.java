@@ -0,0 +1,73 @@
+package com.kuchtoker.product_service.service;
+
+import com.kuchtoker.product_service.dto.ProductExistsResponse;
+import com.kuchtoker.product_service.dto.ProductPageResponse;
+import com.kuchtoker.product_service.dto.ProductResponse;
+import com.kuchtoker.product_service.model.Product;
+import com.kuchtoker.product_service.repository.ReactiveProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterparts of the read paths in {@link ProductService}, on the reactive
+ * Mongo driver. Nothing here parks a thread while waiting for the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveProductService {
+
+    private final ReactiveProductRepository reactiveProductRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Value("${product.page.max-size:500}")
+    private int maxPageSize;
+
+    public Mono<List<ProductExistsResponse>> productExistsByName(List<String> names) {
+        List<String> nameKeys = names.stream().map(Product::nameKeyOf).distinct().toList();
+        return reactiveProductRepository.findExistingByNameKeyIn(nameKeys)
+                .collectMap(Product::getNameKey)
+                .map(productsByNameKey -> ProductService.toExistsResponses(names, productsByNameKey));
+    }
+
+    /**
+     * The whole catalog in id order; demand from the client drives how fast the cursor is read.
+     */
+    public Flux<ProductResponse> getAllProducts() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        return reactiveMongoTemplate.find(query, Product.class).map(ProductService::mapToProductResponse);
+    }
+
+    public Mono<ProductPageResponse> getProductPage(String after, int size) {
+        if (size < 1 || size > maxPageSize) {
+            return Mono.error(new IllegalArgumentException("Page size must be between 1 and " + maxPageSize));
+        }
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(size + 1);
+        if (after != null && !after.isBlank()) {
+            if (!ObjectId.isValid(after)) {
+                return Mono.error(new IllegalArgumentException("Invalid cursor: " + after));
+            }
+            query.addCriteria(Criteria.where("_id").gt(new ObjectId(after)));
+        }
+
+        return reactiveMongoTemplate.find(query, Product.class).collectList().map(products -> {
+            boolean hasMore = products.size() > size;
+            List<Product> page = hasMore ? products.subList(0, size) : products;
+            return ProductPageResponse.builder()
+                    .items(page.stream().map(ProductService::mapToProductResponse).toList())
+                    .nextCursor(hasMore ? page.get(page.size() - 1).getId() : null)
+                    .build();
+        });
+    }
+}
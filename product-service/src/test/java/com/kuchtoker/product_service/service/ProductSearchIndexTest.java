@@ -0,0 +1,127 @@
+package com.kuchtoker.product_service.service;
+
+import com.kuchtoker.product_service.dto.ProductResponse;
+import com.kuchtoker.product_service.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+	private MeterRegistry meterRegistry;
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		index = emptyIndex(meterRegistry);
+	}
+
+	@Test
+	void searchMatchesEveryTermAndTheLastOneAsAPrefix() {
+		index.index(product("1", "Red Shoes", "Running shoes"));
+		index.index(product("2", "Red Shirt", "Cotton"));
+		index.index(product("3", "Blue Shoes", null));
+
+		assertEquals(List.of("Red Shirt", "Red Shoes"), names(index.search("red sh", 10)));
+		assertEquals(List.of("Red Shoes"), names(index.search("RED running", 10)));
+		assertTrue(index.search("green", 10).isEmpty());
+	}
+
+	@Test
+	void autocompleteTokenizesLikeSearch() {
+		index.index(product("1", "Red Shoes", null));
+		index.index(product("2", "Red Shirt", null));
+		index.index(product("3", "Blue Shoes", null));
+
+		assertEquals(List.of("Red Shirt", "Red Shoes"), index.autocomplete("red sh", 10));
+		assertEquals(List.of("Blue Shoes", "Red Shoes"), index.autocomplete("  shoe", 10));
+		assertEquals(List.of("Red Shoes"), index.autocomplete("red sho", 10));
+		assertTrue(index.autocomplete("red bl", 10).isEmpty());
+		assertTrue(index.autocomplete("   ", 10).isEmpty());
+	}
+
+	@Test
+	void multiTermAutocompleteReturnsTheAlphabeticallyFirstNames() {
+		List<String> suffixes = List.of("Tango", "Delta", "Oscar", "Alpha", "Kilo", "Bravo", "Zulu", "Echo", "Mike", "Charlie");
+		for (int i = 0; i < suffixes.size(); i++) {
+			index.index(product(String.valueOf(i), "Red Shoe " + suffixes.get(i), null));
+		}
+
+		assertEquals(List.of("Red Shoe Alpha", "Red Shoe Bravo", "Red Shoe Charlie"), index.autocomplete("red sh", 3));
+	}
+
+	@Test
+	void reindexingAProductDropsItsOldTerms() {
+		index.index(product("1", "Apple", "crisp"));
+		index.index(product("1", "Kiwi", "crisp"));
+
+		assertTrue(index.search("apple", 10).isEmpty());
+		assertTrue(index.autocomplete("app", 10).isEmpty());
+		assertEquals(List.of("Kiwi"), names(index.search("crisp", 10)));
+	}
+
+	@Test
+	void removedTermsArePrunedFromTheTrie() {
+		index.index(product("1", "Apple", null));
+		index.index(product("1", "Kiwi", null));
+
+		MeterRegistry freshRegistry = new SimpleMeterRegistry();
+		ProductSearchIndex fresh = emptyIndex(freshRegistry);
+		fresh.index(product("1", "Kiwi", null));
+
+		// The memory estimate counts trie nodes, so it only matches a fresh index once "apple" is unlinked
+		assertEquals(gauge(freshRegistry, "product.search.index.memory"), gauge(meterRegistry, "product.search.index.memory"));
+		assertEquals(1.0, gauge(meterRegistry, "product.search.index.terms"));
+	}
+
+	@Test
+	void pruningKeepsTermsThatShareAPrefix() {
+		index.index(product("1", "Car", null));
+		index.index(product("2", "Cart", null));
+		index.index(product("2", "Bike", null));
+
+		assertEquals(List.of("Car"), index.autocomplete("ca", 10));
+		assertEquals(List.of("Car"), names(index.search("car", 10)));
+	}
+
+	private static ProductSearchIndex emptyIndex(MeterRegistry meterRegistry) {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenReturn(Stream.empty());
+		ProductSearchIndex index = new ProductSearchIndex(mongoTemplate, meterRegistry);
+		index.start();
+		return index;
+	}
+
+	private static Product product(String id, String name, String description) {
+		return Product.builder()
+				.id(id)
+				.name(name)
+				.nameKey(Product.nameKeyOf(name))
+				.description(description)
+				.price(BigDecimal.TEN)
+				.build();
+	}
+
+	private static List<String> names(List<ProductResponse> responses) {
+		return responses.stream().map(ProductResponse::getName).toList();
+	}
+
+	private static double gauge(MeterRegistry meterRegistry, String name) {
+		return meterRegistry.get(name).gauge().value();
+	}
+}